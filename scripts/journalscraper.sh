@@ -1,20 +1,34 @@
 #!/bin/bash
 
+# Reports the number of /getAllMarketPrices requests per Haveno version to collectd,
+# from the request counters the price node exposes at /actuator/prometheus.
+
 HOSTNAME="${COLLECTD_HOSTNAME:-localhost}"
 INTERVAL=750
+METRICS_URL="${PRICENODE_METRICS_URL:-http://localhost:8078/actuator/prometheus}"
 
-last=$(date +"%F %T" -d "$INTERVAL seconds ago")
+declare -A last
+first=true
 while true;
 do
-	now=$(date +"%F %T")
+	declare -A current=()
+	while read -r version number; do
+		current[$version]=$number
+	done < <(curl -s "$METRICS_URL" \
+		| grep -E '^haveno_price_requests_seconds_count\{.*endpoint="/getAllMarketPrices"' \
+		| sed -nE 's/.*version="([0-9]+\.[0-9]+\.[0-9]+)".*\} ([0-9.eE+]+)$/\1 \2/p' \
+		| awk '{ printf "%s %d\n", $1, $2 }')
 
-	journalctl -u haveno-pricenode --since="$last" --until="$now" | grep -Eo "getAllMarketPrices.*haveno/[0-9]+\.[0-9]+\.[0-9]+" | cut -d / -f 2 | sort | uniq -c | while read -r line; do
-		number=$(echo "${line}" | cut -d ' ' -f 1);
-		version=$(echo "${line}" | cut -d \  -f 2);
-		version=${version//./_};
-		echo "PUTVAL $HOSTNAME/requestsPer750Seconds/gauge-v$version interval=$INTERVAL N:$number";
+	for version in "${!current[@]}"; do
+		# counters restart from 0 when the price node restarts
+		number=$(( current[$version] - ${last[$version]:-0} ))
+		(( number < 0 )) && number=${current[$version]}
+		if [ "$first" = false ]; then
+			echo "PUTVAL $HOSTNAME/requestsPer750Seconds/gauge-v${version//./_} interval=$INTERVAL N:$number";
+		fi
+		last[$version]=${current[$version]}
 	done
-	last=$now
+	first=false
 
 	sleep $INTERVAL
 done
@@ -0,0 +1,79 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the per-pair steps of the aggregation: averaging the rates of all providers
+ * with outliers removed, and translating the aggregate rates to XMR.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AggregationBenchmark {
+
+    @Param({"5", "17", "100"})
+    int providers;
+
+    @Param({"50", "500", "5000"})
+    int pairs;
+
+    private ExchangeRateService service;
+    private List<ExchangeRate> providerRatesOfOnePair;
+    private List<ExchangeRate> aggregateRates;
+    private Map<String, Map<String, ExchangeRate>> aggregateRatesByCurrency;
+
+    @Setup
+    public void setUp() {
+        service = new ExchangeRateService(new StandardEnvironment(), Collections.emptyList(), Collections.emptyList());
+        Random random = new Random(1);
+        providerRatesOfOnePair = new ArrayList<>();
+        for (int p = 0; p < providers; p++) {
+            providerRatesOfOnePair.addAll(SyntheticProviders.rates("SYNTHETIC" + p, 0, random));
+        }
+        aggregateRates = new ArrayList<>(SyntheticProviders.rates("Haveno-Aggregate", pairs, random));
+        aggregateRatesByCurrency = new HashMap<>();
+        aggregateRates.forEach(rate -> aggregateRatesByCurrency
+                .computeIfAbsent(rate.getBaseCurrency(), c -> new HashMap<>())
+                .put(rate.getCounterCurrency(), rate));
+    }
+
+    @Benchmark
+    public PairDiagnostics.Aggregation aggregateWithOutliersRemoved() {
+        return service.aggregateWithOutliersRemoved("XMR", "BTC", providerRatesOfOnePair);
+    }
+
+    /**
+     * Translation of all aggregate rates, as done once per snapshot.
+     */
+    @Benchmark
+    public void translateExchangeRateToXmr(Blackhole blackhole) {
+        for (ExchangeRate rate : aggregateRates) {
+            blackhole.consume(service.translateExchangeRateToXmr(rate, aggregateRatesByCurrency));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import haveno.price.util.JsonWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of the {@link ExchangeRateService}: serving the published snapshot,
+ * serializing it as the /getAllMarketPrices response with Jackson or with
+ * {@link MarketPricesJson}, and rebuilding it after one provider refreshed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExchangeRateServiceBenchmark {
+
+    @Param({"5", "17", "100"})
+    int providers;
+
+    @Param({"50", "500", "5000"})
+    int pairs;
+
+    private ExchangeRateService service;
+    private List<ExchangeRateProvider> providerList;
+    private List<Set<ExchangeRate>> refreshes;
+    private int refresh;
+    // as configured by spring.jackson.serialization.indent_output
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final ObjectMapper compactObjectMapper = new ObjectMapper();
+    private final JsonWriter json = new JsonWriter(64 * 1024);
+
+    @Setup
+    public void setUp() {
+        providerList = SyntheticProviders.create(providers, pairs, 1);
+        service = new ExchangeRateService(new StandardEnvironment(), providerList, Collections.emptyList());
+        Random random = new Random(2);
+        refreshes = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            refreshes.add(SyntheticProviders.rates(providerList.get(i % providers).getName(), pairs, random));
+        }
+        service.getAllMarketPrices();
+    }
+
+    @Benchmark
+    public Map<String, Object> getAllMarketPrices() {
+        return service.getAllMarketPrices();
+    }
+
+    @Benchmark
+    public byte[] serializeAllMarketPrices() throws Exception {
+        return objectMapper.writeValueAsBytes(service.getAllMarketPrices());
+    }
+
+    @Benchmark
+    public byte[] serializeAllMarketPricesCompact() throws Exception {
+        return compactObjectMapper.writeValueAsBytes(service.getAllMarketPrices());
+    }
+
+    /**
+     * The same bytes as {@link #serializeAllMarketPricesCompact()}, as served.
+     */
+    @Benchmark
+    public byte[] writeAllMarketPrices() {
+        MarketPricesJson.write(service.getSnapshot(), json.reset());
+        return json.toByteArray();
+    }
+
+    /**
+     * One provider delivers new rates, which rebuilds the snapshot.
+     */
+    @Benchmark
+    public ExchangeRateSnapshot refreshOneProvider() {
+        int i = refresh++ & 15;
+        providerList.get(i % providers).put(refreshes.get(i));
+        return service.getSnapshot();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import haveno.price.util.JsonWriter;
+import haveno.price.util.ProtoReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the JSON and protocol buffers representations of /getAllMarketPrices: the
+ * encoding once per snapshot on the node, and the decoding on every client, which
+ * reads all fields of all rates. The sizes of both, and of a delta after one provider
+ * refreshed, are printed in the setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MarketPricesEncodingBenchmark {
+
+    @Param({"50", "500", "5000"})
+    int pairs;
+
+    private ExchangeRateSnapshot snapshot;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonWriter jsonWriter = new JsonWriter(64 * 1024);
+    private byte[] json;
+    private byte[] protobuf;
+
+    @Setup
+    public void setUp() {
+        List<ExchangeRateProvider> providers = SyntheticProviders.create(5, pairs, 1);
+        ExchangeRateService service = new ExchangeRateService(new StandardEnvironment(), providers, Collections.emptyList());
+        snapshot = service.getSnapshot();
+        json = encodeJson();
+        protobuf = MarketPricesProto.encode(snapshot);
+
+        providers.get(0).put(SyntheticProviders.rates(providers.get(0).getName(), pairs, new Random(2)));
+        byte[] delta = MarketPricesProto.encodeDelta(service.getSnapshot(), snapshot.getPublishedAt(), snapshot.getRates());
+        System.out.printf("%n%d pairs: JSON %d bytes, protobuf %d bytes, protobuf delta after one refresh %d bytes%n",
+                pairs, json.length, protobuf.length, delta.length);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        MarketPricesJson.write(snapshot, jsonWriter.reset());
+        return jsonWriter.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] encodeProtobuf() {
+        return MarketPricesProto.encode(snapshot);
+    }
+
+    @Benchmark
+    public void decodeJson(Blackhole blackhole) throws Exception {
+        JsonNode root = objectMapper.readTree(json);
+        for (JsonNode rate : root.get("data")) {
+            blackhole.consume(rate.get("baseCurrencyCode").asText());
+            blackhole.consume(rate.get("counterCurrencyCode").asText());
+            blackhole.consume(rate.get("price").asDouble());
+            blackhole.consume(rate.get("timestampSec").asLong());
+            blackhole.consume(rate.get("provider").asText());
+        }
+    }
+
+    @Benchmark
+    public void decodeProtobuf(Blackhole blackhole) {
+        List<String> strings = new ArrayList<>();
+        ProtoReader reader = new ProtoReader(protobuf);
+        while (reader.next()) {
+            if (reader.field() == 1) {
+                strings.add(reader.string());
+            } else if (reader.field() == 3) {
+                ProtoReader rate = reader.message();
+                while (rate.next()) {
+                    switch (rate.field()) {
+                        case 1, 2, 5 -> blackhole.consume(strings.get((int) rate.varint()));
+                        case 3 -> blackhole.consume(rate.float64());
+                        case 4 -> blackhole.consume(rate.varint());
+                        default -> rate.skip();
+                    }
+                }
+            } else {
+                reader.skip();
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot;
+
+import org.springframework.core.env.StandardEnvironment;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Synthetic {@link ExchangeRateProvider}s for benchmarks, each holding a BTC rate for
+ * the same set of made-up fiat currencies plus an XMR/BTC rate, with prices spread
+ * around a common mean so that the outlier filter has work to do.
+ */
+final class SyntheticProviders {
+
+    private SyntheticProviders() {
+    }
+
+    static String currency(int index) {
+        return String.format("F%04d", index);
+    }
+
+    /**
+     * @param providers number of providers
+     * @param pairs     number of currency pairs per provider
+     * @param seed      seed of the price spread
+     */
+    static List<ExchangeRateProvider> create(int providers, int pairs, long seed) {
+        Random random = new Random(seed);
+        List<ExchangeRateProvider> result = new ArrayList<>(providers);
+        for (int p = 0; p < providers; p++) {
+            ExchangeRateProvider provider = provider("SYNTHETIC" + p);
+            provider.put(rates(provider.getName(), pairs, random));
+            result.add(provider);
+        }
+        return result;
+    }
+
+    /**
+     * @return a new set of rates of the given provider, as if it refreshed
+     */
+    static Set<ExchangeRate> rates(String providerName, int pairs, Random random) {
+        // timestamp 0 is never considered stale, so long runs keep all rates
+        Set<ExchangeRate> rates = new HashSet<>(pairs * 2);
+        rates.add(new ExchangeRate("XMR", "BTC", 0.0025 * spread(random), 0L, providerName));
+        for (int i = 0; i < pairs; i++) {
+            rates.add(new ExchangeRate("BTC", currency(i), (1000.0 + i) * spread(random), 0L, providerName));
+        }
+        return rates;
+    }
+
+    private static double spread(Random random) {
+        // mostly within 1%, with an occasional outlier
+        return random.nextInt(20) == 0 ? 0.5 + random.nextDouble() : 1 + random.nextGaussian() / 100;
+    }
+
+    private static ExchangeRateProvider provider(String name) {
+        return new ExchangeRateProvider(new StandardEnvironment(), name, name.toLowerCase(), Duration.ofDays(1)) {
+            @Override
+            protected Set<ExchangeRate> doGet() {
+                return get();
+            }
+        };
+    }
+}
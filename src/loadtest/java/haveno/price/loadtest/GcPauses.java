@@ -0,0 +1,79 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+package haveno.price.loadtest;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import haveno.price.util.JsonWriter;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Stop-the-world GC pauses from the time of construction until {@link #stop()}, as
+ * reported by the GC notifications of the JVM. Concurrent collection cycles, e.g. of
+ * ZGC, are not pauses and not counted.
+ */
+class GcPauses implements NotificationListener {
+
+    private long count;
+    private long totalMillis;
+    private long maxMillis;
+
+    GcPauses() {
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (bean instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(this, null, null);
+            }
+        }
+    }
+
+    void stop() throws ListenerNotFoundException {
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (bean instanceof NotificationEmitter emitter) {
+                emitter.removeNotificationListener(this);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void handleNotification(Notification notification, Object handback) {
+        if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        String name = info.getGcName();
+        boolean pause = !name.contains("Cycles") && (!name.contains("Concurrent") || info.getGcAction().contains("pause"));
+        if (pause) {
+            long millis = info.getGcInfo().getDuration();
+            count++;
+            totalMillis += millis;
+            maxMillis = Math.max(maxMillis, millis);
+        }
+    }
+
+    synchronized void write(JsonWriter json) {
+        json.raw(",\"gcPauses\":{\"count\":").number(count)
+                .raw(",\"totalMillis\":").number(totalMillis)
+                .raw(",\"maxMillis\":").number(maxMillis)
+                .raw('}');
+    }
+}
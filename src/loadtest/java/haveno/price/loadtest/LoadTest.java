@@ -0,0 +1,374 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+package haveno.price.loadtest;
+
+import haveno.price.Main;
+import haveno.price.util.JsonWriter;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end load test of /getAllMarketPrices. Starts the price node in-process with
+ * all providers, both the XChange and the WebClient based ones, sending their upstream
+ * requests to the local upstream stand-in, which replays responses recorded to fixture
+ * files. Then drives the endpoint with Haveno-like User-Agents and reports throughput,
+ * latency percentiles, GC pauses and RSS.
+ *
+ * Run with {@code ./gradlew loadTest -PloadTestArgs="--concurrency=64 --duration=60"}.
+ * Record the fixtures once from the live APIs with {@code --mode=record}.
+ *
+ * Options, all of the form --name=value:
+ * <ul>
+ *     <li>mode: replay (default) or record</li>
+ *     <li>fixtures: fixture directory</li>
+ *     <li>server: comma separated web stacks of the price node to measure one after
+ *     the other: servlet (default, Tomcat with its platform thread pool),
+ *     servlet-virtual (Tomcat with virtual threads) or reactive (Reactor Netty).
+ *     both is short for servlet,reactive</li>
+ *     <li>concurrency: number of concurrent clients, each on its own virtual thread and
+ *     connection, default 16</li>
+ *     <li>rate: total requests per second, default 0 for as fast as possible. With a
+ *     rate, latency is measured from the intended send time, so that a stalled server
+ *     is not hidden by clients waiting for it</li>
+ *     <li>warmup, duration: seconds, default 10 and 30</li>
+ *     <li>upstreamLatencyMillis: added to every replayed upstream response</li>
+ *     <li>out: file to write the result to as JSON</li>
+ *     <li>sloP99Millis, sloMinThroughput: exit with status 2 if not met</li>
+ * </ul>
+ *
+ * The load generator runs in the same JVM as the price node, so throughput, GC pauses
+ * and RSS include its own overhead. Compare results taken with the same options on the
+ * same machine only.
+ */
+public class LoadTest {
+
+    private static final String[] USER_AGENTS = {
+            "Haveno/1.0.7", "Haveno/1.0.8", "Haveno/1.0.9", "Haveno/1.0.10", "Haveno/1.0.11"
+    };
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String mode = options.getOrDefault("mode", "replay");
+        Path fixtures = Paths.get(options.getOrDefault("fixtures", "src/loadtest/fixtures")).toAbsolutePath();
+        if (mode.equals("replay") && !hasFixtures(fixtures)) {
+            System.err.println("No fixtures in " + fixtures + ", record them first with --mode=record");
+            System.exit(1);
+        }
+
+        String serverOption = options.getOrDefault("server", "servlet");
+        List<String> servers = Arrays.asList((serverOption.equals("both") ? "servlet,reactive" : serverOption).split(","));
+        if (!List.of("servlet", "servlet-virtual", "reactive").containsAll(servers)) {
+            System.err.println("Unknown server in " + serverOption);
+            System.exit(1);
+        }
+        List<byte[]> reports = new ArrayList<>();
+        boolean sloMet = true;
+        for (String server : servers) {
+            Path dataDir = Files.createTempDirectory("haveno-pricenode-loadtest");
+            Properties properties = new Properties();
+            properties.setProperty("spring.main.web-application-type", server.equals("reactive") ? "reactive" : "servlet");
+            properties.setProperty("spring.threads.virtual.enabled", String.valueOf(server.equals("servlet-virtual")));
+            properties.setProperty("server.port", "0");
+            properties.setProperty("haveno.price.dataDir", dataDir.toString());
+            properties.setProperty("haveno.price.snapshot.enabled", "false");
+            properties.setProperty("haveno.price.upstream.cache.enabled", "false");
+            // all load comes from one address, the limit would answer most of it with 429
+            properties.setProperty("haveno.price.rateLimit.enabled", "false");
+            properties.setProperty("haveno.price.upstream.mode", mode);
+            properties.setProperty("haveno.price.upstream.fixtureDir", fixtures.toString());
+            properties.setProperty("haveno.price.upstream.replay.latencyMillis", options.getOrDefault("upstreamLatencyMillis", "0"));
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(Main.class)
+                    .properties(properties)
+                    .run();
+            try {
+                int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+                URI uri = URI.create("http://127.0.0.1:" + port + "/getAllMarketPrices");
+                HttpClient client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .build();
+
+                int rates = awaitRates(client, uri, Duration.ofMinutes(3));
+                System.out.printf("Providers refreshed, serving %d rates from the %s stack%n", rates, server);
+                if (mode.equals("record")) {
+                    System.out.println("Recorded fixtures to " + fixtures);
+                    break;
+                }
+                JsonWriter json = new JsonWriter(1024);
+                sloMet &= measure(client, uri, server, rates, options, json);
+                System.out.println(new String(json.toByteArray(), StandardCharsets.UTF_8));
+                reports.add(json.toByteArray());
+            } finally {
+                context.close();
+                deleteRecursively(dataDir);
+            }
+        }
+
+        if (options.containsKey("out") && !reports.isEmpty()) {
+            JsonWriter json = new JsonWriter(4096);
+            for (int i = 0; i < reports.size(); i++) {
+                json.raw(i == 0 ? '[' : ',').raw(new String(reports.get(i), StandardCharsets.UTF_8));
+            }
+            json.raw(']');
+            Path out = Paths.get(options.get("out")).toAbsolutePath();
+            Files.createDirectories(out.getParent());
+            Files.write(out, json.toByteArray());
+        }
+        System.exit(sloMet ? 0 : 2);
+    }
+
+    /**
+     * Run the warmup and the measurement and write the result.
+     *
+     * @return false if a service level objective was not met
+     */
+    private static boolean measure(HttpClient client, URI uri, String server, int rates,
+                                   Map<String, String> options, JsonWriter json) throws Exception {
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "0"));
+        run(client, uri, concurrency, rate, Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10"))));
+
+        GcPauses gcPauses = new GcPauses();
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        Result result = run(client, uri, concurrency, rate, duration);
+        gcPauses.stop();
+
+        json.raw("{\"server\":").string(server)
+                .raw(",\"concurrency\":").number(concurrency)
+                .raw(",\"targetRate\":").number(rate)
+                .raw(",\"durationSeconds\":").number(duration.getSeconds())
+                .raw(",\"rates\":").number(rates);
+        result.write(json);
+        gcPauses.write(json);
+        ResidentMemory.write(json);
+        json.raw('}');
+
+        boolean sloMet = true;
+        if (options.containsKey("sloP99Millis")
+                && !(result.percentileMillis(0.99) <= Double.parseDouble(options.get("sloP99Millis")))) {
+            System.err.println("SLO not met by the " + server + " stack: p99 above " + options.get("sloP99Millis") + " ms");
+            sloMet = false;
+        }
+        if (options.containsKey("sloMinThroughput")
+                && result.throughput() < Double.parseDouble(options.get("sloMinThroughput"))) {
+            System.err.println("SLO not met by the " + server + " stack: throughput below "
+                    + options.get("sloMinThroughput") + " requests/s");
+            sloMet = false;
+        }
+        return sloMet;
+    }
+
+    /**
+     * Wait until all providers refreshed, i.e. until the number of served rates did
+     * not change for five seconds.
+     *
+     * @return the number of served rates
+     */
+    private static int awaitRates(HttpClient client, URI uri, Duration timeout) throws Exception {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        int rates = -1;
+        int stablePolls = 0;
+        while (System.nanoTime() < deadline) {
+            HttpResponse<String> response = client.send(request(uri, USER_AGENTS[0]), HttpResponse.BodyHandlers.ofString());
+            int current = response.statusCode() == 200 ? count(response.body(), "\"baseCurrencyCode\"") : 0;
+            stablePolls = current > 0 && current == rates ? stablePolls + 1 : 0;
+            rates = current;
+            if (stablePolls >= 5) {
+                return rates;
+            }
+            Thread.sleep(1000);
+        }
+        throw new IllegalStateException("Providers did not refresh within " + timeout + ", serving " + rates + " rates");
+    }
+
+    private static Result run(HttpClient client, URI uri, int concurrency, double rate, Duration duration)
+            throws InterruptedException {
+        long intervalNanos = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) * concurrency / rate) : 0;
+        long startNanos = System.nanoTime();
+        long endNanos = startNanos + duration.toNanos();
+        Latencies[] latencies = new Latencies[concurrency];
+        AtomicLong errors = new AtomicLong();
+        Thread[] threads = new Thread[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            Latencies clientLatencies = latencies[i] = new Latencies();
+            HttpRequest request = request(uri, USER_AGENTS[i % USER_AGENTS.length]);
+            // spread the first requests of paced clients over one interval
+            long firstSend = startNanos + (intervalNanos * i) / concurrency;
+            threads[i] = Thread.ofVirtual().name("load-client-" + i).start(() -> {
+                long intended = firstSend;
+                while (true) {
+                    long sendNanos;
+                    if (intervalNanos > 0) {
+                        long now;
+                        while ((now = System.nanoTime()) < intended) {
+                            LockSupport.parkNanos(intended - now);
+                        }
+                        sendNanos = intended;
+                        intended += intervalNanos;
+                    } else {
+                        sendNanos = System.nanoTime();
+                    }
+                    if (sendNanos >= endNanos) {
+                        return;
+                    }
+                    try {
+                        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                        if (response.statusCode() == 200) {
+                            clientLatencies.add(System.nanoTime() - sendNanos);
+                        } else {
+                            errors.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return new Result(Latencies.merge(latencies), errors.get(), System.nanoTime() - startNanos);
+    }
+
+    private static HttpRequest request(URI uri, String userAgent) {
+        return HttpRequest.newBuilder(uri)
+                .header("User-Agent", userAgent)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    private static boolean hasFixtures(Path fixtures) throws IOException {
+        if (!Files.isDirectory(fixtures)) {
+            return false;
+        }
+        try (Stream<Path> files = Files.walk(fixtures)) {
+            return files.anyMatch(f -> f.toString().endsWith(".fixture"));
+        }
+    }
+
+    private static int count(String text, String token) {
+        int count = 0;
+        for (int i = text.indexOf(token); i >= 0; i = text.indexOf(token, i + token.length())) {
+            count++;
+        }
+        return count;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+        }
+    }
+
+    /**
+     * Latencies of the successful requests of one measurement.
+     */
+    private static class Result {
+        private final long[] sortedLatencies;
+        private final long errors;
+        private final long elapsedNanos;
+
+        Result(long[] sortedLatencies, long errors, long elapsedNanos) {
+            this.sortedLatencies = sortedLatencies;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        double throughput() {
+            return sortedLatencies.length / (elapsedNanos / 1e9);
+        }
+
+        double percentileMillis(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1e6;
+        }
+
+        void write(JsonWriter json) {
+            json.raw(",\"requests\":").number(sortedLatencies.length)
+                    .raw(",\"errors\":").number(errors)
+                    .raw(",\"throughput\":").number(throughput())
+                    .raw(",\"latencyMillis\":{\"p50\":").number(percentileMillis(0.5))
+                    .raw(",\"p99\":").number(percentileMillis(0.99))
+                    .raw(",\"p999\":").number(percentileMillis(0.999))
+                    .raw(",\"max\":").number(percentileMillis(1))
+                    .raw('}');
+        }
+    }
+
+    /**
+     * Growable array of the latencies one client measured, in nanos.
+     */
+    private static class Latencies {
+        private long[] values = new long[1 << 16];
+        private int size;
+
+        void add(long latencyNanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = latencyNanos;
+        }
+
+        static long[] merge(Latencies[] all) {
+            int total = 0;
+            for (Latencies latencies : all) {
+                total += latencies.size;
+            }
+            long[] merged = new long[total];
+            int offset = 0;
+            for (Latencies latencies : all) {
+                System.arraycopy(latencies.values, 0, merged, offset, latencies.size);
+                offset += latencies.size;
+            }
+            Arrays.sort(merged);
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+package haveno.price.loadtest;
+
+import haveno.price.util.JsonWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Resident set size of this process, read from /proc and therefore only available on
+ * Linux.
+ */
+final class ResidentMemory {
+
+    private static final Path STATUS = Paths.get("/proc/self/status");
+
+    private ResidentMemory() {
+    }
+
+    /**
+     * Write the current and the peak resident set size, or -1 if unknown.
+     */
+    static void write(JsonWriter json) {
+        long rssKb = -1;
+        long peakKb = -1;
+        if (Files.isReadable(STATUS)) {
+            try {
+                for (String line : Files.readAllLines(STATUS)) {
+                    if (line.startsWith("VmRSS:")) {
+                        rssKb = kilobytes(line);
+                    } else if (line.startsWith("VmHWM:")) {
+                        peakKb = kilobytes(line);
+                    }
+                }
+            } catch (IOException e) {
+                // leave unknown
+            }
+        }
+        json.raw(",\"rssKb\":").number(rssKb)
+                .raw(",\"peakRssKb\":").number(peakKb);
+    }
+
+    private static long kilobytes(String line) {
+        // e.g. "VmRSS:	  123456 kB"
+        return Long.parseLong(line.replaceAll("[^0-9]", ""));
+    }
+}
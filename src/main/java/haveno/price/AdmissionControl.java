@@ -0,0 +1,178 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price;
+
+import haveno.price.spot.EncodedSnapshots;
+import haveno.price.util.ConcurrencyLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Admission control in front of the {@link PriceController} endpoints. At most as many
+ * requests as the adaptive limit of a {@link ConcurrencyLimiter} are served at once,
+ * and excess requests are rejected right away with 503 Service Unavailable and a
+ * Retry-After header, so that an overloaded node keeps serving the admitted requests
+ * at their usual latency.
+ *
+ * Conditional requests for the full /getAllMarketPrices body, without query
+ * parameters, which are answered with 304 Not Modified are always admitted and do not
+ * count against the limit. Requests for a projection or a delta may be served a body
+ * encoded on demand and always count.
+ *
+ * The limit, the requests in flight and the rejections by endpoint are published as
+ * the haveno.price.admission.* metrics. Enabled unless haveno.price.admission.enabled
+ * is false.
+ */
+@Component
+public class AdmissionControl implements HandlerInterceptor, WebMvcConfigurer {
+
+    public enum Admission {
+        /**
+         * Admitted, {@link #release} must be called once the request completed.
+         */
+        PERMITTED,
+        /**
+         * Admitted without counting against the limit.
+         */
+        FREE,
+        REJECTED
+    }
+
+    private static final String START_ATTRIBUTE = AdmissionControl.class.getName() + ".start";
+    private static final MediaType PROTOBUF = MediaType.parseMediaType(EncodedSnapshots.PROTOBUF);
+
+    private final EncodedSnapshots encodedSnapshots;
+    private final boolean enabled;
+    private final ConcurrencyLimiter limiter;
+    private final String retryAfterSeconds;
+    private final Map<String, Counter> rejections = new ConcurrentHashMap<>();
+
+    public AdmissionControl(Environment env, EncodedSnapshots encodedSnapshots) {
+        this.encodedSnapshots = encodedSnapshots;
+        this.enabled = env.getProperty("haveno.price.admission.enabled", Boolean.class, true);
+        this.limiter = new ConcurrencyLimiter(
+                env.getProperty("haveno.price.admission.initialLimit", Integer.class, 64),
+                env.getProperty("haveno.price.admission.minLimit", Integer.class, 8),
+                env.getProperty("haveno.price.admission.maxLimit", Integer.class, 1024),
+                env.getProperty("haveno.price.admission.latencyTolerance", Double.class, 2.0));
+        this.retryAfterSeconds = env.getProperty("haveno.price.admission.retryAfterSeconds", "5");
+        Gauge.builder("haveno.price.admission.limit", limiter, ConcurrencyLimiter::getLimit)
+                .description("Current limit of concurrently served price requests")
+                .register(Metrics.globalRegistry);
+        Gauge.builder("haveno.price.admission.inflight", limiter, ConcurrencyLimiter::getInFlight)
+                .description("Price requests currently served within the limit")
+                .register(Metrics.globalRegistry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // after ClientRateLimit and before RequestMetrics, so that rejected requests are not timed
+        registry.addInterceptor(this).order(Ordered.HIGHEST_PRECEDENCE + 1);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod method && method.getBean() instanceof PriceController)) {
+            return true;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = pattern == null ? request.getServletPath() : pattern.toString();
+        Object producible = request.getAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE);
+        boolean protobuf = producible instanceof Set<?> types && types.contains(PROTOBUF);
+        switch (admit(endpoint, request.getQueryString(), protobuf, request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            case PERMITTED:
+                request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+                return true;
+            case FREE:
+                return true;
+            default:
+                response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+                return false;
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (start != null) {
+            release((long) start);
+        }
+    }
+
+    /**
+     * Admit a request served outside of the servlet stack.
+     *
+     * @param endpoint    path pattern of the endpoint
+     * @param query       query string of the request, may be null
+     * @param protobuf    whether the request is served protocol buffers rather than JSON
+     * @param ifNoneMatch If-None-Match header of the request, may be null
+     */
+    public Admission admit(String endpoint, String query, boolean protobuf, String ifNoneMatch) {
+        if (!enabled) {
+            return Admission.FREE;
+        }
+        if (ifNoneMatch != null && endpoint.equals("/getAllMarketPrices") && (query == null || query.isEmpty())
+                && encodedSnapshots.isNotModified(ifNoneMatch, protobuf)) {
+            return Admission.FREE;
+        }
+        if (limiter.tryAcquire()) {
+            return Admission.PERMITTED;
+        }
+        rejections.computeIfAbsent(endpoint, e -> Counter.builder("haveno.price.admission.rejected")
+                        .description("Price requests rejected because the limit was reached")
+                        .tag("endpoint", e)
+                        .register(Metrics.globalRegistry))
+                .increment();
+        return Admission.REJECTED;
+    }
+
+    /**
+     * Release a {@link Admission#PERMITTED} request.
+     *
+     * @param startNanos {@link System#nanoTime()} when it was admitted
+     */
+    public void release(long startNanos) {
+        limiter.release(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return value of the Retry-After header of rejected requests
+     */
+    public String getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price;
+
+import haveno.price.util.TokenBuckets;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Per-client rate limit of the {@link PriceController} endpoints, so that a client
+ * polling in a tight loop is answered with 429 Too Many Requests and a Retry-After
+ * header instead of costing as much as many well-behaved clients.
+ *
+ * Clients are identified by their remote address. The client header,
+ * haveno.price.rateLimit.clientHeader, X-Forwarded-For by default, is trusted only on
+ * connections from one of the proxies listed in haveno.price.rateLimit.trustedProxies,
+ * the loopback addresses by default, since any client can set it to pick a fresh bucket
+ * for every request. Of a trusted header the last address is used, as that is the one
+ * the proxy saw. Requests from a trusted proxy without the header are not limited, as
+ * they would all share the bucket of the proxy. This covers onion service connections
+ * relayed by a local Tor daemon, which exposes circuits only through the PROXY
+ * protocol, not through a header.
+ *
+ * Each endpoint has its own {@link TokenBuckets}, configured by the first segment of
+ * its path, e.g. haveno.price.rateLimit.requestsPerMinute.getAllMarketPrices, with
+ * haveno.price.rateLimit.requestsPerMinute and haveno.price.rateLimit.burst as the
+ * defaults. Rejections are published as the haveno.price.ratelimit.rejected metric.
+ */
+@Component
+public class ClientRateLimit implements HandlerInterceptor, WebMvcConfigurer {
+
+    private static final int MAX_CLIENT_LENGTH = 64;
+
+    private final Environment env;
+    private final boolean enabled;
+    private final String clientHeader;
+    // host addresses, in the form of InetAddress.getHostAddress
+    private final Set<String> trustedProxies;
+    private final int maxClients;
+    private final Map<String, Limit> limits = new ConcurrentHashMap<>();
+
+    public ClientRateLimit(Environment env) {
+        this.env = env;
+        this.enabled = env.getProperty("haveno.price.rateLimit.enabled", Boolean.class, true);
+        this.clientHeader = env.getProperty("haveno.price.rateLimit.clientHeader", "X-Forwarded-For");
+        this.trustedProxies = Arrays.stream(env.getProperty("haveno.price.rateLimit.trustedProxies", String[].class, new String[]{"127.0.0.1", "::1"}))
+                .map(String::trim)
+                .filter(proxy -> !proxy.isEmpty())
+                .map(ClientRateLimit::hostAddress)
+                .collect(Collectors.toUnmodifiableSet());
+        this.maxClients = env.getProperty("haveno.price.rateLimit.maxClients", Integer.class, 65536);
+        Gauge.builder("haveno.price.ratelimit.clients", limits, l -> l.values().stream().mapToInt(limit -> limit.buckets.size()).sum())
+                .description("Clients currently tracked by the rate limit, over all endpoints")
+                .register(Metrics.globalRegistry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // before AdmissionControl, so that rejected requests take no part of its limit
+        registry.addInterceptor(this).order(Ordered.HIGHEST_PRECEDENCE);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod method && method.getBean() instanceof PriceController)) {
+            return true;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = pattern == null ? request.getServletPath() : pattern.toString();
+        long retryAfterSeconds = tryAcquire(endpoint, request.getRemoteAddr(), request.getHeader(clientHeader));
+        if (retryAfterSeconds == 0) {
+            return true;
+        }
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return false;
+    }
+
+    /**
+     * Rate limit a request served outside of the servlet stack.
+     *
+     * @param endpoint      path pattern of the endpoint
+     * @param remoteAddress host address of the connection, may be null if unknown
+     * @param headerValue   value of the client header, may be null
+     * @return 0 if the request may proceed, otherwise the seconds after which the
+     * client may retry
+     */
+    public long tryAcquire(String endpoint, String remoteAddress, String headerValue) {
+        if (!enabled) {
+            return 0;
+        }
+        if (remoteAddress == null) {
+            return 0;
+        }
+        String client;
+        if (!trustedProxies.contains(remoteAddress)) {
+            client = remoteAddress;
+        } else if (headerValue != null) {
+            client = client(headerValue);
+        } else {
+            return 0;
+        }
+        Limit limit = limits.get(endpoint);
+        if (limit == null) {
+            limit = limits.computeIfAbsent(endpoint, this::newLimit);
+        }
+        long waitNanos = limit.buckets.tryAcquire(client);
+        if (waitNanos == 0) {
+            return 0;
+        }
+        limit.rejected.increment();
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    public String getClientHeader() {
+        return clientHeader;
+    }
+
+    /**
+     * @return the last, trimmed element of the header value, truncated to a bounded length
+     */
+    static String client(String headerValue) {
+        String client = headerValue.substring(headerValue.lastIndexOf(',') + 1).trim();
+        return client.length() > MAX_CLIENT_LENGTH ? client.substring(0, MAX_CLIENT_LENGTH) : client;
+    }
+
+    private static String hostAddress(String proxy) {
+        try {
+            // an address literal, so no lookup is done
+            return InetAddress.getByName(proxy).getHostAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Invalid haveno.price.rateLimit.trustedProxies entry " + proxy, e);
+        }
+    }
+
+    private Limit newLimit(String endpoint) {
+        String name = endpoint.startsWith("/") ? endpoint.substring(1) : endpoint;
+        int slash = name.indexOf('/');
+        name = slash < 0 ? name : name.substring(0, slash);
+        double requestsPerMinute = env.getProperty("haveno.price.rateLimit.requestsPerMinute." + name, Double.class,
+                env.getProperty("haveno.price.rateLimit.requestsPerMinute", Double.class, 120.0));
+        int burst = env.getProperty("haveno.price.rateLimit.burst." + name, Integer.class,
+                env.getProperty("haveno.price.rateLimit.burst", Integer.class, 60));
+        return new Limit(new TokenBuckets(requestsPerMinute / 60, burst, maxClients),
+                Counter.builder("haveno.price.ratelimit.rejected")
+                        .description("Price requests rejected because the client exceeded its rate limit")
+                        .tag("endpoint", endpoint)
+                        .register(Metrics.globalRegistry));
+    }
+
+    private static class Limit {
+        private final TokenBuckets buckets;
+        private final Counter rejected;
+
+        private Limit(TokenBuckets buckets, Counter rejected) {
+            this.buckets = buckets;
+            this.rejected = rejected;
+        }
+    }
+}
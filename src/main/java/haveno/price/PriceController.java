@@ -17,15 +17,8 @@
 
 package haveno.price;
 
-import jakarta.servlet.http.HttpServletRequest;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.web.bind.annotation.ModelAttribute;
-
-@Slf4j
+/**
+ * Base class of the price node endpoints, whose requests are counted by {@link RequestMetrics}.
+ */
 public abstract class PriceController {
-
-    @ModelAttribute
-    public void logRequest(HttpServletRequest request) {
-        log.info("Incoming {} request from: {}", request.getServletPath(), request.getHeader("User-Agent"));
-    }
 }
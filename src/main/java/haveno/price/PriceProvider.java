@@ -19,11 +19,17 @@ package haveno.price;
 
 import org.springframework.context.SmartLifecycle;
 import haveno.common.UserThread;
+import haveno.price.jfr.ProviderRefreshEvent;
+import haveno.price.util.upstream.RequestDeferredException;
 import java.time.Duration;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
 import org.slf4j.Logger;
@@ -37,7 +43,17 @@ public abstract class PriceProvider<T> implements SmartLifecycle, Supplier<T> {
 
     protected final Duration refreshInterval;
 
-    private T cachedResult;
+    private final List<Runnable> updateListeners = new CopyOnWriteArrayList<>();
+
+    // written under the lock on this, read without any lock
+    private final AtomicReference<ProviderResult<T>> result = new AtomicReference<>(ProviderResult.none());
+
+    private volatile ProviderMetrics metrics;
+
+    private volatile Throwable refreshFailure;
+
+    // time in millis at which the next scheduled refresh starts, 0 until started
+    private volatile long nextRefreshAt;
 
     public PriceProvider(Duration refreshInterval) {
         this.refreshInterval = refreshInterval;
@@ -46,11 +62,57 @@ public abstract class PriceProvider<T> implements SmartLifecycle, Supplier<T> {
 
     @Override
     public final T get() {
-        return cachedResult;
+        return result.get().getValue();
+    }
+
+    /**
+     * @return the latest result with its version. Read the value from the returned
+     * result rather than calling {@link #get()} again, so that all reads refer to the
+     * same version.
+     */
+    public final ProviderResult<T> getResult() {
+        return result.get();
     }
 
     public final void put(T values) {
-        cachedResult = values;
+        synchronized (this) {
+            result.set(result.get().next(beforePut(values)));
+        }
+        updateListeners.forEach(Runnable::run);
+    }
+
+    /**
+     * Replace the cached result only if it has not been changed since {@code expected}
+     * was read, so that a background update cannot overwrite a concurrent refresh.
+     *
+     * @return true if the cached result was replaced
+     */
+    protected final boolean compareAndPut(T expected, T values) {
+        synchronized (this) {
+            ProviderResult<T> current = result.get();
+            if (current.getValue() != expected) {
+                return false;
+            }
+            result.set(current.next(beforePut(values)));
+        }
+        updateListeners.forEach(Runnable::run);
+        return true;
+    }
+
+    /**
+     * Hook to adjust values before they become the cached result. Invoked on the
+     * thread calling {@link #put(Object)}, never on a request thread.
+     */
+    protected T beforePut(T values) {
+        return values;
+    }
+
+    /**
+     * Register a listener which is notified, outside of any lock, every time the
+     * cached result is replaced.
+     */
+    public void addUpdateListener(Runnable listener) {
+        updateListeners.add(listener);
     }
 
     @Override
@@ -64,9 +126,11 @@ public abstract class PriceProvider<T> implements SmartLifecycle, Supplier<T> {
             }
         }, 1, TimeUnit.MILLISECONDS);
 
+        nextRefreshAt = System.currentTimeMillis() + refreshInterval.toMillis();
         timer.scheduleAtFixedRate(new TimerTask() {
             @Override
             public void run() {
+                nextRefreshAt = scheduledExecutionTime() + refreshInterval.toMillis();
                 try {
                     refresh();
                 } catch (Throwable t) {
@@ -79,19 +143,99 @@ public abstract class PriceProvider<T> implements SmartLifecycle, Supplier<T> {
         }, refreshInterval.toMillis(), refreshInterval.toMillis());
     }
 
-    private void refresh() {
+    // package-private for tests
+    void refresh() {
+        ProviderMetrics metrics = getMetrics();
+        ProviderRefreshEvent event = new ProviderRefreshEvent();
+        event.begin();
+        ProviderMetrics.Result result = ProviderMetrics.Result.SUCCESS;
         try {
             long ts = System.currentTimeMillis();
+            long start = System.nanoTime();
+            refreshFailure = null;
             put(doGet());
+            Throwable failure = refreshFailure;
+            if (failure == null) {
+                metrics.recordSuccess(System.nanoTime() - start);
+            } else {
+                result = ProviderMetrics.Result.ofFailure(failure);
+                metrics.recordResult(result);
+            }
             log.info("refresh took {} ms.", (System.currentTimeMillis() - ts));
             onRefresh();
+        } catch (RequestDeferredException e) {
+            result = ProviderMetrics.Result.DEFERRED;
+            metrics.recordResult(result);
+            log.info("refresh deferred, keeping current data: {}", e.getMessage());
         } catch (Exception e) {
+            result = ProviderMetrics.Result.ofFailure(e);
+            metrics.recordResult(result);
             log.warn("Error refreshing price provider {}: {}", getClass(), e.getMessage());
+        } finally {
+            event.finish(getMetricsName(), countRates(get()), result.tag());
         }
     }
 
     protected abstract T doGet();
 
+    /**
+     * @return time in millis at which the next scheduled refresh starts, which is in the
+     * past while a late refresh is running, or 0 if the provider was not started
+     */
+    public final long getNextRefreshAt() {
+        return nextRefreshAt;
+    }
+
+    /**
+     * Record that the current {@link #doGet()} failed, for implementations which
+     * handle the failure themselves instead of passing it up.
+     */
+    protected final void recordRefreshFailure(Throwable failure) {
+        refreshFailure = failure;
+    }
+
+    /**
+     * @return the value of the provider tag of this provider's metrics
+     */
+    protected String getMetricsName() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * @return the number of rates in the given result, reported as a gauge
+     */
+    protected int countRates(T values) {
+        if (values instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        return values == null ? 0 : 1;
+    }
+
+    /**
+     * @return time in millis of the newest rate held, or 0 if unknown
+     */
+    protected long getNewestRateTimestamp() {
+        return 0;
+    }
+
+    private ProviderMetrics getMetrics() {
+        ProviderMetrics result = metrics;
+        if (result == null) {
+            synchronized (this) {
+                if (metrics == null) {
+                    metrics = new ProviderMetrics(getMetricsName(), this,
+                            p -> p.countRates(p.get()),
+                            p -> {
+                                long newest = p.getNewestRateTimestamp();
+                                return newest == 0 ? Double.NaN : (System.currentTimeMillis() - newest) / 1000.0;
+                            });
+                }
+                result = metrics;
+            }
+        }
+        return result;
+    }
+
     protected void onRefresh() {
     }
 
@@ -113,7 +257,7 @@ public abstract class PriceProvider<T> implements SmartLifecycle, Supplier<T> {
 
     @Override
     public boolean isRunning() {
-        return cachedResult != null;
+        return result.get().getValue() != null;
     }
 
     @Override
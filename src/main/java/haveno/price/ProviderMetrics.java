@@ -0,0 +1,100 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price;
+
+import io.micrometer.core.instrument.*;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Meters of one {@link PriceProvider}, all registered up front with the global
+ * registry, which Spring Boot links to the Prometheus registry. Recording a refresh
+ * then only updates existing meters and does not allocate.
+ */
+final class ProviderMetrics {
+
+    /**
+     * Outcome of a refresh, with failures grouped by cause.
+     */
+    enum Result {
+        SUCCESS, DEFERRED, TIMEOUT, HTTP_STATUS, IO, OTHER;
+
+        private final String tag = name().toLowerCase();
+
+        String tag() {
+            return tag;
+        }
+
+        static Result ofFailure(Throwable failure) {
+            boolean io = false;
+            for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+                if (t instanceof TimeoutException || t instanceof SocketTimeoutException || t instanceof HttpTimeoutException
+                        || (t instanceof IllegalStateException && String.valueOf(t.getMessage()).startsWith("Timeout"))) {
+                    return TIMEOUT;
+                }
+                if (t instanceof WebClientResponseException || t.getClass().getSimpleName().equals("HttpStatusIOException")) {
+                    return HTTP_STATUS;
+                }
+                io |= t instanceof IOException;
+            }
+            return io ? IO : OTHER;
+        }
+    }
+
+    private final Timer refreshTimer;
+    private final Counter[] results = new Counter[Result.values().length];
+
+    <P> ProviderMetrics(String provider, P priceProvider, ToDoubleFunction<P> rates, ToDoubleFunction<P> newestRateAgeSeconds) {
+        MeterRegistry registry = Metrics.globalRegistry;
+        this.refreshTimer = Timer.builder("haveno.price.provider.refresh")
+                .description("Duration of successful provider refreshes")
+                .tag("provider", provider)
+                .publishPercentileHistogram()
+                .register(registry);
+        for (Result result : Result.values()) {
+            results[result.ordinal()] = Counter.builder("haveno.price.provider.refresh.result")
+                    .description("Provider refreshes by result")
+                    .tags("provider", provider, "result", result.tag)
+                    .register(registry);
+        }
+        Gauge.builder("haveno.price.provider.rates", priceProvider, rates)
+                .description("Number of rates currently held by the provider")
+                .tag("provider", provider)
+                .register(registry);
+        Gauge.builder("haveno.price.provider.newest.rate.age", priceProvider, newestRateAgeSeconds)
+                .description("Age of the newest rate held by the provider")
+                .tag("provider", provider)
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    void recordSuccess(long durationNanos) {
+        refreshTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+        results[Result.SUCCESS.ordinal()].increment();
+    }
+
+    void recordResult(Result result) {
+        results[result.ordinal()].increment();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+package haveno.price;
+
+/**
+ * Immutable result of a {@link PriceProvider}, numbered in the order in which the
+ * provider published its results. Consumers which read the results of several
+ * providers can compare versions to tell whether anything changed since their last
+ * read, without comparing the values.
+ *
+ * @param <T> type of the provided value, which must not be modified once published
+ */
+public final class ProviderResult<T> {
+
+    private static final ProviderResult<?> NONE = new ProviderResult<>(0, null);
+
+    private final long version;
+    private final T value;
+
+    private ProviderResult(long version, T value) {
+        this.version = version;
+        this.value = value;
+    }
+
+    /**
+     * @return the result before the first publish, version 0 without a value
+     */
+    @SuppressWarnings("unchecked")
+    static <T> ProviderResult<T> none() {
+        return (ProviderResult<T>) NONE;
+    }
+
+    ProviderResult<T> next(T value) {
+        return new ProviderResult<>(version + 1, value);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the value, or null if the provider has not published any yet
+     */
+    public T getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+package haveno.price;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import haveno.price.spot.EncodedSnapshots;
+import haveno.price.spot.MarketPricesProjection;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Functional routes serving the most requested endpoints from Reactor Netty, enabled
+ * with spring.main.web-application-type=reactive. Responses are the cached, already
+ * encoded bodies, which are written without copying and without blocking the event
+ * loop, behind the same {@link ClientRateLimit}, {@link AdmissionControl} and
+ * {@link RequestMetrics} as on the servlet stack. Bodies encoded on the first request
+ * for them, i.e. protocol buffers, deltas and projections, are encoded on the bounded
+ * elastic scheduler.
+ *
+ * Only /getAllMarketPrices, in JSON and protocol buffers, and /version are served in
+ * this mode. The annotated controllers of the other endpoints do blocking work and are
+ * registered on the servlet stack only.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRoutes {
+
+    private static final MediaType PROTOBUF = MediaType.parseMediaType(EncodedSnapshots.PROTOBUF);
+    // as converted to boolean by Spring MVC
+    private static final Set<String> FALSE = Set.of("false", "off", "no", "0");
+
+    @Bean
+    RouterFunction<ServerResponse> priceRoutes(EncodedSnapshots encodedSnapshots,
+                                               ClientRateLimit clientRateLimit,
+                                               AdmissionControl admissionControl,
+                                               RequestMetrics requestMetrics) {
+        return RouterFunctions.route()
+                .GET("/getAllMarketPrices", ReactiveRoutes::acceptsProtobuf, request -> {
+                    Long since = request.queryParam("since").filter(v -> v.matches("\\d{1,18}")).map(Long::valueOf).orElse(null);
+                    return response(encodedSnapshots, encodedSnapshots.findAllMarketPricesProtobuf(since),
+                            () -> encodedSnapshots.getAllMarketPricesProtobuf(since), PROTOBUF);
+                })
+                .GET("/getAllMarketPrices", request -> {
+                    boolean metadata = request.queryParam("metadata").map(v -> !FALSE.contains(v.toLowerCase())).orElse(true);
+                    Optional<MarketPricesProjection> projection = MarketPricesProjection.of(
+                            request.queryParam("currencies").orElse(null), metadata);
+                    if (projection.isEmpty()) {
+                        return ServerResponse.badRequest().build();
+                    }
+                    MarketPricesProjection parts = projection.get();
+                    return response(encodedSnapshots, encodedSnapshots.findAllMarketPrices(parts),
+                            () -> encodedSnapshots.getAllMarketPrices(parts), MediaType.APPLICATION_JSON);
+                })
+                // in the order of the servlet interceptors, so that rejected requests are not timed
+                .filter((request, next) -> {
+                    String remoteAddress = request.remoteAddress()
+                            .map(address -> address.getAddress() == null ? null : address.getAddress().getHostAddress())
+                            .orElse(null);
+                    long retryAfterSeconds = clientRateLimit.tryAcquire(request.path(), remoteAddress,
+                            request.headers().firstHeader(clientRateLimit.getClientHeader()));
+                    if (retryAfterSeconds > 0) {
+                        return ServerResponse.status(HttpStatus.TOO_MANY_REQUESTS)
+                                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                                .build();
+                    }
+                    return next.handle(request);
+                })
+                .filter((request, next) -> {
+                    AdmissionControl.Admission admission = admissionControl.admit(request.path(), request.uri().getRawQuery(),
+                            acceptsProtobuf(request), request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH));
+                    if (admission == AdmissionControl.Admission.REJECTED) {
+                        return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, admissionControl.getRetryAfterSeconds())
+                                .build();
+                    }
+                    if (admission == AdmissionControl.Admission.FREE) {
+                        return next.handle(request);
+                    }
+                    long start = System.nanoTime();
+                    return next.handle(request).doFinally(signal -> admissionControl.release(start));
+                })
+                .filter((request, next) -> {
+                    long start = System.nanoTime();
+                    return next.handle(request).doOnSuccess(response -> requestMetrics.record(
+                            request.path(), request.headers().firstHeader(HttpHeaders.USER_AGENT), System.nanoTime() - start));
+                })
+                .build();
+    }
+
+    /**
+     * Unlike RequestPredicates.accept, false for wildcards, which are served JSON as by
+     * the servlet stack.
+     */
+    private static boolean acceptsProtobuf(ServerRequest request) {
+        return request.headers().accept().stream().anyMatch(PROTOBUF::equalsTypeAndSubtype);
+    }
+
+    /**
+     * Respond with the body if it is encoded already, else encode it off the event loop.
+     */
+    private static Mono<ServerResponse> response(EncodedSnapshots encodedSnapshots, EncodedSnapshots.Body encoded,
+                                                 Supplier<EncodedSnapshots.Body> encode, MediaType contentType) {
+        if (encoded != null) {
+            return response(encodedSnapshots, encoded, contentType);
+        }
+        return Mono.fromSupplier(encode)
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(body -> response(encodedSnapshots, body, contentType));
+    }
+
+    private static Mono<ServerResponse> response(EncodedSnapshots encodedSnapshots, EncodedSnapshots.Body body, MediaType contentType) {
+        // answered with 304 Not Modified if the request's If-None-Match lists the tag
+        return ServerResponse.ok()
+                .eTag(body.getETag())
+                .headers(headers -> encodedSnapshots.setCacheHeaders(body, headers))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .contentType(contentType)
+                .bodyValue(body.getBytes());
+    }
+
+    @Bean
+    RouterFunction<ServerResponse> versionRoute(ObjectMapper objectMapper, Environment env) throws JsonProcessingException {
+        // same body as the servlet ApiController
+        byte[] version = objectMapper.writeValueAsBytes(Map.of("version", env.getProperty("haveno.price.version", "")));
+        return RouterFunctions.route()
+                .GET("/version", request -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(version))
+                .build();
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Counts and times every request to a {@link PriceController}, by endpoint and by the
+ * Haveno version parsed from the User-Agent header, as the haveno.price.requests
+ * metric. This replaces the INFO line per request, which was scraped from the journal
+ * to count requests per version.
+ *
+ * The version tags are bounded: versions beyond {@link #MAX_VERSIONS} are counted as
+ * "other". User-Agents are parsed once and kept in a cache of the least recently used
+ * ones, so that a stream of made-up User-Agents only evicts itself while the clients
+ * actually polling stay cached. Access logging is
+ * off by default and can be enabled for a sampled share of requests with
+ * haveno.price.accessLog.sampleRate.
+ */
+@Slf4j
+@Component
+public class RequestMetrics implements HandlerInterceptor, WebMvcConfigurer {
+
+    static final int MAX_VERSIONS = 32;
+    static final int MAX_USER_AGENTS = 1024;
+    // longer ones are parsed on every request rather than held in the cache
+    private static final int MAX_CACHED_USER_AGENT_LENGTH = 256;
+    private static final String UNKNOWN = "unknown";
+    private static final String OTHER = "other";
+    private static final Pattern VERSION = Pattern.compile("haveno/(\\d+\\.\\d+\\.\\d+)", Pattern.CASE_INSENSITIVE);
+    private static final String START_ATTRIBUTE = RequestMetrics.class.getName() + ".start";
+
+    private final double accessLogSampleRate;
+    // not a monitor, so that a virtual thread serving a request is never pinned
+    private final ReentrantLock userAgentLock = new ReentrantLock();
+    // in access order, guarded by userAgentLock
+    private final Map<String, String> versionByUserAgent = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_USER_AGENTS;
+        }
+    };
+    private final Map<String, String> versions = new ConcurrentHashMap<>();
+    // by endpoint, then version
+    private final Map<String, Map<String, Timer>> timers = new ConcurrentHashMap<>();
+
+    public RequestMetrics(Environment env) {
+        this.accessLogSampleRate = Double.parseDouble(env.getProperty("haveno.price.accessLog.sampleRate", "0"));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (isPriceController(handler)) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+            if (accessLogSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < accessLogSampleRate) {
+                log.info("Incoming {} request from: {}", request.getServletPath(), request.getHeader("User-Agent"));
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (start == null) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = pattern == null ? request.getServletPath() : pattern.toString();
+        record(endpoint, request.getHeader("User-Agent"), System.nanoTime() - (long) start);
+    }
+
+    /**
+     * Record a request served outside of the servlet stack.
+     *
+     * @param endpoint path pattern of the endpoint
+     */
+    public void record(String endpoint, String userAgent, long durationNanos) {
+        timer(endpoint, version(userAgent)).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the Haveno version in the given User-Agent, "unknown" if there is none,
+     * or "other" once {@link #MAX_VERSIONS} versions were seen
+     */
+    String version(String userAgent) {
+        if (userAgent == null) {
+            return UNKNOWN;
+        }
+        boolean cacheable = userAgent.length() <= MAX_CACHED_USER_AGENT_LENGTH;
+        if (cacheable) {
+            String version = cachedVersion(userAgent);
+            if (version != null) {
+                return version;
+            }
+        }
+        Matcher matcher = VERSION.matcher(userAgent);
+        String version = matcher.find() ? boundedVersion(matcher.group(1)) : UNKNOWN;
+        if (cacheable) {
+            userAgentLock.lock();
+            try {
+                versionByUserAgent.put(userAgent, version);
+            } finally {
+                userAgentLock.unlock();
+            }
+        }
+        return version;
+    }
+
+    /**
+     * @return the cached version of the User-Agent, or null if it is not cached
+     */
+    String cachedVersion(String userAgent) {
+        userAgentLock.lock();
+        try {
+            return versionByUserAgent.get(userAgent);
+        } finally {
+            userAgentLock.unlock();
+        }
+    }
+
+    private String boundedVersion(String version) {
+        String known = versions.get(version);
+        if (known != null) {
+            return known;
+        }
+        if (versions.size() >= MAX_VERSIONS) {
+            return OTHER;
+        }
+        return versions.computeIfAbsent(version, v -> v);
+    }
+
+    private Timer timer(String endpoint, String version) {
+        Map<String, Timer> byVersion = timers.get(endpoint);
+        Timer timer = byVersion == null ? null : byVersion.get(version);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(endpoint, e -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(version, v -> Timer.builder("haveno.price.requests")
+                            .description("Requests served, by endpoint and Haveno client version")
+                            .tags("endpoint", endpoint, "version", v)
+                            .publishPercentileHistogram()
+                            .register(Metrics.globalRegistry));
+        }
+        return timer;
+    }
+
+    private static boolean isPriceController(Object handler) {
+        return handler instanceof HandlerMethod method && method.getBean() instanceof PriceController;
+    }
+}
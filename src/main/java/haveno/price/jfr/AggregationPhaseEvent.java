@@ -0,0 +1,63 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+package haveno.price.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * One phase of building an exchange rate snapshot from the rates of all providers.
+ */
+@Name("haveno.price.AggregationPhase")
+@Label("Aggregation Phase")
+@Category({"Haveno", "Price Node"})
+@StackTrace(false)
+public class AggregationPhaseEvent extends Event {
+
+    public static final String COLLECT = "collect";
+    public static final String AGGREGATE = "aggregate";
+    public static final String TRANSLATE = "translate";
+    public static final String SORT = "sort";
+    public static final String METADATA = "metadata";
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Rate Count")
+    @Description("Number of rates the phase produced")
+    int rateCount;
+
+    /**
+     * @return a new event of the given phase, begun now
+     */
+    public static AggregationPhaseEvent start(String phase) {
+        AggregationPhaseEvent event = new AggregationPhaseEvent();
+        event.phase = phase;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * End the event and commit it if it is enabled and exceeds the threshold.
+     */
+    public void finish(int rateCount) {
+        end();
+        if (shouldCommit()) {
+            this.rateCount = rateCount;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+package haveno.price.jfr;
+
+import haveno.price.util.JsonWriter;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Admin endpoints to start and stop a JDK Flight Recorder recording, which includes
+ * the {@link ProviderRefreshEvent}, {@link AggregationPhaseEvent} and
+ * {@link ResponseEncodingEvent}. The recording is bounded in duration and size and is
+ * written to a single file in the data dir, which the stop request returns.
+ *
+ * The endpoints are only available if haveno.price.admin.token is set, and require
+ * its value in the X-Admin-Token header.
+ */
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+class FlightRecordingController {
+
+    private static final String TOKEN_HEADER = "X-Admin-Token";
+    private static final String FILE_NAME = "haveno-pricenode.jfr";
+
+    private final byte[] token;
+    private final Path file;
+    private final Duration maxDuration;
+    private final long maxSizeBytes;
+
+    private Recording recording;
+
+    public FlightRecordingController(Environment env) {
+        String token = env.getProperty("haveno.price.admin.token", "");
+        this.token = token.isEmpty() ? null : token.getBytes(StandardCharsets.UTF_8);
+        this.file = Paths.get(env.getProperty("haveno.price.dataDir",
+                System.getProperty("user.home") + "/.haveno-pricenode"), "jfr", FILE_NAME);
+        this.maxDuration = Duration.ofSeconds(env.getProperty("haveno.price.jfr.maxDurationSeconds", Long.class, 600L));
+        this.maxSizeBytes = env.getProperty("haveno.price.jfr.maxSizeMb", Long.class, 64L) * 1024 * 1024;
+    }
+
+    /**
+     * @param seconds  duration after which the recording stops by itself, capped by
+     *                 haveno.price.jfr.maxDurationSeconds
+     * @param settings "default" for the continuous low overhead settings, or "profile"
+     *                 for more detail at a higher overhead
+     */
+    @PostMapping(path = "/admin/jfr/start")
+    public synchronized ResponseEntity<byte[]> start(@RequestHeader(value = TOKEN_HEADER, required = false) String token,
+                                                     @RequestParam(defaultValue = "60") long seconds,
+                                                     @RequestParam(defaultValue = "default") String settings) throws IOException {
+        HttpStatus denied = authorize(token);
+        if (denied != null) {
+            return ResponseEntity.status(denied).build();
+        }
+        if (!settings.equals("default") && !settings.equals("profile")) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        closeRecording();
+
+        Duration duration = Duration.ofSeconds(Math.max(1, seconds));
+        if (duration.compareTo(maxDuration) > 0) {
+            duration = maxDuration;
+        }
+        Recording newRecording;
+        try {
+            newRecording = new Recording(Configuration.getConfiguration(settings));
+        } catch (ParseException e) {
+            throw new IOException(e);
+        }
+        newRecording.setName("haveno-pricenode");
+        newRecording.enable(ProviderRefreshEvent.class);
+        newRecording.enable(AggregationPhaseEvent.class);
+        newRecording.enable(ResponseEncodingEvent.class);
+        newRecording.setToDisk(true);
+        newRecording.setMaxSize(maxSizeBytes);
+        newRecording.setDuration(duration);
+        Files.createDirectories(file.getParent());
+        Files.deleteIfExists(file);
+        newRecording.setDestination(file);
+        newRecording.start();
+        recording = newRecording;
+        log.info("Started {} flight recording for {} s", settings, duration.getSeconds());
+
+        JsonWriter json = new JsonWriter(128);
+        json.raw("{\"settings\":").string(settings)
+                .raw(",\"durationSeconds\":").number(duration.getSeconds())
+                .raw(",\"maxSizeBytes\":").number(maxSizeBytes)
+                .raw('}');
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json.toByteArray());
+    }
+
+    /**
+     * Stop the recording, unless it already stopped by itself, and return it.
+     */
+    @PostMapping(path = "/admin/jfr/stop")
+    public synchronized ResponseEntity<Resource> stop(@RequestHeader(value = TOKEN_HEADER, required = false) String token) {
+        HttpStatus denied = authorize(token);
+        if (denied != null) {
+            return ResponseEntity.status(denied).build();
+        }
+        if (recording == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (recording.getState() == RecordingState.RUNNING) {
+            // writes the recording to its destination
+            recording.stop();
+        }
+        closeRecording();
+        if (!Files.exists(file)) {
+            return ResponseEntity.notFound().build();
+        }
+        log.info("Stopped flight recording");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + FILE_NAME + "\"")
+                .body(new FileSystemResource(file));
+    }
+
+    @PreDestroy
+    synchronized void closeRecording() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private HttpStatus authorize(String token) {
+        if (this.token == null) {
+            return HttpStatus.NOT_FOUND;
+        }
+        if (token == null || !MessageDigest.isEqual(this.token, token.getBytes(StandardCharsets.UTF_8))) {
+            return HttpStatus.FORBIDDEN;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.jfr;
+
+import haveno.price.util.LogSampler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Reports virtual threads which stayed pinned to their carrier thread, e.g. while
+ * blocking inside a synchronized block, as the haveno.price.virtualthreads.pinned
+ * metric and as a sampled log line with the stack of the pinned thread. Active only
+ * in the virtual thread mode enabled with spring.threads.virtual.enabled.
+ *
+ * Consumes the JDK's jdk.VirtualThreadPinned event from an in-process event stream,
+ * independent of any recording started through the {@link FlightRecordingController}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+class PinnedThreadMonitor {
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_FRAMES = 8;
+
+    private final LogSampler logSampler = new LogSampler(1, Duration.ofMinutes(10));
+    private final Counter pinned = Counter.builder("haveno.price.virtualthreads.pinned")
+            .description("Virtual threads pinned to their carrier for longer than the threshold")
+            .register(Metrics.globalRegistry);
+    private final RecordingStream stream;
+
+    public PinnedThreadMonitor(Environment env) {
+        Duration threshold = Duration.ofMillis(env.getProperty("haveno.price.virtualThreads.pinnedThresholdMillis", Long.class, 20L));
+        stream = new RecordingStream();
+        stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(EVENT, this::onPinned);
+        stream.startAsync();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.increment();
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace == null ? List.of() : stackTrace.getFrames();
+        StringBuilder stack = new StringBuilder();
+        String site = null;
+        for (RecordedFrame frame : frames.subList(0, Math.min(frames.size(), MAX_FRAMES))) {
+            String method = frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+            if (site == null && method.startsWith("haveno.")) {
+                site = method;
+            }
+            stack.append("\n\tat ").append(method).append(':').append(frame.getLineNumber());
+        }
+        // one line per pinning site, the first application frame
+        logSampler.info(log, EVENT, site == null ? "" : site, "Virtual thread pinned for {} ms{}",
+                event.getDuration().toMillis(), stack);
+    }
+
+    @PreDestroy
+    void close() {
+        stream.close();
+    }
+}
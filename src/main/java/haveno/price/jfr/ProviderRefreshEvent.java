@@ -0,0 +1,52 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+package haveno.price.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * One refresh of a price provider, from the upstream request to the new rates being
+ * published, including the snapshot rebuild triggered by them.
+ */
+@Name("haveno.price.ProviderRefresh")
+@Label("Provider Refresh")
+@Category({"Haveno", "Price Node"})
+@StackTrace(false)
+public class ProviderRefreshEvent extends Event {
+
+    @Label("Provider")
+    String provider;
+
+    @Label("Rate Count")
+    int rateCount;
+
+    @Label("Result")
+    String result;
+
+    /**
+     * End the event and commit it if it is enabled and exceeds the threshold.
+     */
+    public void finish(String provider, int rateCount, String result) {
+        end();
+        if (shouldCommit()) {
+            this.provider = provider;
+            this.rateCount = rateCount;
+            this.result = result;
+            commit();
+        }
+    }
+}
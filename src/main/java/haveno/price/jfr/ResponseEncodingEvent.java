@@ -0,0 +1,48 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+package haveno.price.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Encoding of one response body.
+ */
+@Name("haveno.price.ResponseEncoding")
+@Label("Response Encoding")
+@Category({"Haveno", "Price Node"})
+@StackTrace(false)
+public class ResponseEncodingEvent extends Event {
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Size")
+    @DataAmount
+    int size;
+
+    /**
+     * End the event and commit it if it is enabled and exceeds the threshold.
+     */
+    public void finish(String endpoint, int size) {
+        end();
+        if (shouldCommit()) {
+            this.endpoint = endpoint;
+            this.size = size;
+            commit();
+        }
+    }
+}
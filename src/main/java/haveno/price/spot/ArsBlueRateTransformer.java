@@ -18,15 +18,21 @@
 package haveno.price.spot;
 
 import haveno.price.spot.providers.BlueRateProvider;
+import haveno.price.util.LogSampler;
 import haveno.price.util.bluelytics.ArsBlueMarketGapProvider;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalDouble;
 
+@Slf4j
 @Component
 public class ArsBlueRateTransformer implements ExchangeRateTransformer {
     private final ArsBlueMarketGapProvider blueMarketGapProvider;
+    private final LogSampler logSampler = new LogSampler(1, Duration.ofMinutes(1));
 
     public ArsBlueRateTransformer(ArsBlueMarketGapProvider blueMarketGapProvider) {
         this.blueMarketGapProvider = blueMarketGapProvider;
@@ -38,8 +44,9 @@ public class ArsBlueRateTransformer implements ExchangeRateTransformer {
             return Optional.of(originalExchangeRate);
         }
 
+        // null until the first BlueLytics refresh, e.g. while a stored snapshot is restored
         OptionalDouble sellGapMultiplier = blueMarketGapProvider.get();
-        if (sellGapMultiplier.isEmpty()) {
+        if (sellGapMultiplier == null || sellGapMultiplier.isEmpty()) {
             return Optional.empty();
         }
 
@@ -53,12 +60,30 @@ public class ArsBlueRateTransformer implements ExchangeRateTransformer {
                 originalExchangeRate.getProvider()
         );
 
-        provider.getGatedLogging().maybeLogInfo(String.format("%s transformed from %s to %s",
-                    originalExchangeRate.getBaseCurrency() + "/" + originalExchangeRate.getCounterCurrency(), originalExchangeRate.getPrice(), blueRate));
+        logSampler.info(log, provider.getName(), originalExchangeRate.getBaseCurrency(), "{} {}/{} transformed from {} to {}",
+                provider.getName(), originalExchangeRate.getBaseCurrency(), originalExchangeRate.getCounterCurrency(),
+                originalExchangeRate.getPrice(), blueRate);
 
         return Optional.of(newExchangeRate);
     }
 
+    @Override
+    public void addUpdateListener(Runnable listener) {
+        // the gap provider refreshes hourly, only notify if the multiplier actually moved
+        blueMarketGapProvider.addUpdateListener(new Runnable() {
+            private OptionalDouble lastSellGapMultiplier = blueMarketGapProvider.get();
+
+            @Override
+            public void run() {
+                OptionalDouble sellGapMultiplier = blueMarketGapProvider.get();
+                if (!Objects.equals(sellGapMultiplier, lastSellGapMultiplier)) {
+                    lastSellGapMultiplier = sellGapMultiplier;
+                    listener.run();
+                }
+            }
+        });
+    }
+
     @Override
     public String supportedCurrency() {
         return "ARS";
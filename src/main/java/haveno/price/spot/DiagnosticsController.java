@@ -0,0 +1,56 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+package haveno.price.spot;
+
+import haveno.price.PriceController;
+import haveno.price.util.JsonWriter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+class DiagnosticsController extends PriceController {
+
+    private final ExchangeRateService exchangeRateService;
+
+    public DiagnosticsController(ExchangeRateService exchangeRateService) {
+        this.exchangeRateService = exchangeRateService;
+    }
+
+    /**
+     * @return how the currently served rate of the pair was aggregated: the provider
+     * rates which contributed, the inlier bounds, the removed outliers and how the rate
+     * was translated to XMR
+     */
+    @GetMapping(path = "/diagnostics/{base}/{counter}")
+    public ResponseEntity<byte[]> getDiagnostics(@PathVariable String base, @PathVariable String counter) {
+        ExchangeRateSnapshot snapshot = exchangeRateService.getSnapshot();
+        PairDiagnostics diagnostics = snapshot.getDiagnostics(base.toUpperCase(), counter.toUpperCase());
+        if (diagnostics == null) {
+            return ResponseEntity.notFound().build();
+        }
+        JsonWriter json = new JsonWriter(1024);
+        diagnostics.write(snapshot.getPublishedAt(), json);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json.toByteArray());
+    }
+}
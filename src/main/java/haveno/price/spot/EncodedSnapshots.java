@@ -0,0 +1,357 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+package haveno.price.spot;
+
+import haveno.price.jfr.ResponseEncodingEvent;
+import haveno.price.util.JsonWriter;
+import org.springframework.core.env.Environment;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Response bodies encoded once per {@link ExchangeRateSnapshot} and shared by all
+ * requests for it, by either web stack, each with an entity tag for conditional
+ * requests. The returned arrays must not be modified.
+ *
+ * The JSON body is encoded on the thread which publishes or restores a snapshot, and
+ * requests are served the latest encoded snapshot without ever encoding it. The protocol
+ * buffers body, its deltas to the {@link #MAX_DELTA_BASES} previous snapshots and the
+ * JSON bodies of {@link MarketPricesProjection}s are encoded on the first request for
+ * them. The find methods return these only if they are encoded already, for callers
+ * which must not encode on their own thread. Projections are kept in a least recently
+ * used cache of haveno.price.projection.maxVariants per snapshot.
+ *
+ * Bodies are cacheable by HTTP caches until the next scheduled provider refresh, see
+ * {@link #setCacheHeaders(Body, HttpHeaders)}.
+ */
+@Component
+public class EncodedSnapshots {
+
+    /**
+     * Media type of the protocol buffers body, described by market_prices.proto.
+     */
+    public static final String PROTOBUF = "application/x-protobuf";
+
+    static final int MAX_DELTA_BASES = 16;
+
+    private final ExchangeRateService exchangeRateService;
+    private final int maxProjections;
+    private final long maxAgeSeconds;
+    private final long staleWhileRevalidateSeconds;
+    // reused for every snapshot, as it grows to the size of the response
+    private final JsonWriter json = new JsonWriter(64 * 1024);
+    private final ReentrantLock jsonLock = new ReentrantLock();
+    // rates of the latest published snapshots, by version
+    private final LinkedHashMap<Long, List<ExchangeRate>> recentRates = new LinkedHashMap<>();
+    private final ReentrantLock recentRatesLock = new ReentrantLock();
+
+    private volatile Encoded encoded;
+
+    public EncodedSnapshots(Environment env, ExchangeRateService exchangeRateService) {
+        this.exchangeRateService = exchangeRateService;
+        this.maxProjections = env.getProperty("haveno.price.projection.maxVariants", Integer.class, 64);
+        this.maxAgeSeconds = env.getProperty("haveno.price.cache.maxAgeSeconds", Long.class, 60L);
+        this.staleWhileRevalidateSeconds = env.getProperty("haveno.price.cache.staleWhileRevalidateSeconds", Long.class, 10L);
+        // encode up front and then on the refresh thread, so that requests find the
+        // encoding ready
+        encode(exchangeRateService.getSnapshot());
+        exchangeRateService.addSnapshotListener(new ExchangeRateService.SnapshotListener() {
+            @Override
+            public void onPublish(ExchangeRateSnapshot snapshot) {
+                EncodedSnapshots.this.onPublish(snapshot);
+            }
+
+            @Override
+            public void onRestore(ExchangeRateSnapshot snapshot) {
+                encode(snapshot);
+            }
+        });
+    }
+
+    /**
+     * @return the /getAllMarketPrices response of the current snapshot, as compact JSON
+     */
+    public Body getAllMarketPrices() {
+        return current().allMarketPrices;
+    }
+
+    /**
+     * @return the part of the /getAllMarketPrices response of the current snapshot
+     * selected by the projection
+     */
+    public Body getAllMarketPrices(MarketPricesProjection projection) {
+        Encoded current = current();
+        Body body = findProjection(current, projection);
+        if (body == null) {
+            // encoded outside of the lock, possibly twice by concurrent requests
+            ResponseEncodingEvent event = new ResponseEncodingEvent();
+            event.begin();
+            JsonWriter projected = new JsonWriter(4096);
+            MarketPricesJson.write(current.snapshot, projection, projected);
+            byte[] bytes = projected.toByteArray();
+            event.finish("/getAllMarketPrices projection", bytes.length);
+            body = body(current.snapshot, bytes);
+            current.projectionsLock.lock();
+            try {
+                current.projections.put(projection.key(), body);
+            } finally {
+                current.projectionsLock.unlock();
+            }
+        }
+        return body;
+    }
+
+    /**
+     * @return the body of {@link #getAllMarketPrices(MarketPricesProjection)} if it is
+     * encoded already, else null
+     */
+    public Body findAllMarketPrices(MarketPricesProjection projection) {
+        return findProjection(current(), projection);
+    }
+
+    /**
+     * @param since version of a snapshot the client holds, or null
+     * @return the /getAllMarketPrices response of the current snapshot as protocol
+     * buffers, as a delta if a version is given and still known
+     */
+    public Body getAllMarketPricesProtobuf(Long since) {
+        Encoded current = current();
+        List<ExchangeRate> baseRates = since == null ? null : getRecentRates(since);
+        if (baseRates == null) {
+            Body protobuf = current.protobuf;
+            if (protobuf == null) {
+                protobuf = current.protobuf = encodeProtobuf(current.snapshot, 0, null);
+            }
+            return protobuf;
+        }
+        Body delta = current.deltas.get(since);
+        if (delta == null) {
+            // may be encoded twice by concurrent requests, which is cheaper than blocking them
+            delta = encodeProtobuf(current.snapshot, since, baseRates);
+            current.deltas.put(since, delta);
+        }
+        return delta;
+    }
+
+    /**
+     * @return the body of {@link #getAllMarketPricesProtobuf(Long)} if it is encoded
+     * already, else null
+     */
+    public Body findAllMarketPricesProtobuf(Long since) {
+        Encoded current = current();
+        if (since != null) {
+            Body delta = current.deltas.get(since);
+            if (delta != null) {
+                return delta;
+            }
+            if (getRecentRates(since) != null) {
+                return null;
+            }
+        }
+        return current.protobuf;
+    }
+
+    /**
+     * @param protobuf whether the request is served protocol buffers rather than JSON
+     * @return true if the If-None-Match header value lists the entity tag of the full
+     * body of the current snapshot in the given representation, i.e. if a request for
+     * the full body can be answered with 304
+     */
+    public boolean isNotModified(String ifNoneMatch, boolean protobuf) {
+        Encoded current = current();
+        Body body = protobuf ? current.protobuf : current.allMarketPrices;
+        return body != null && matches(ifNoneMatch, body.eTag);
+    }
+
+    /**
+     * Set the headers which let HTTP caches serve the body without asking again until
+     * the snapshot may change: Last-Modified at the time the snapshot was published,
+     * and Cache-Control max-age and Expires at the next scheduled provider refresh,
+     * capped at haveno.price.cache.maxAgeSeconds. stale-while-revalidate lets a cache
+     * answer from the stale body while it fetches the body of the refreshed snapshot.
+     */
+    public void setCacheHeaders(Body body, HttpHeaders headers) {
+        long now = System.currentTimeMillis();
+        long maxAge = maxAgeSeconds(now, exchangeRateService.getNextRefreshAt(), maxAgeSeconds);
+        headers.setCacheControl(CacheControl.maxAge(maxAge, TimeUnit.SECONDS)
+                .cachePublic()
+                .staleWhileRevalidate(staleWhileRevalidateSeconds, TimeUnit.SECONDS));
+        headers.setExpires(now + TimeUnit.SECONDS.toMillis(maxAge));
+        headers.setLastModified(body.lastModified);
+    }
+
+    /**
+     * @return whole seconds from now until the next refresh, so that a cache never
+     * serves a body beyond it, or 0 while a refresh is due or if none is scheduled
+     */
+    static long maxAgeSeconds(long now, long nextRefreshAt, long maxAgeSeconds) {
+        if (nextRefreshAt <= now) {
+            return 0;
+        }
+        return Math.min(maxAgeSeconds, TimeUnit.MILLISECONDS.toSeconds(nextRefreshAt - now));
+    }
+
+    /**
+     * @return the latest encoded snapshot, which lags the published snapshot only until
+     * the publishing thread has encoded it
+     */
+    private Encoded current() {
+        return encoded;
+    }
+
+    private static Body findProjection(Encoded current, MarketPricesProjection projection) {
+        if (projection.isAll()) {
+            return current.allMarketPrices;
+        }
+        current.projectionsLock.lock();
+        try {
+            return current.projections.get(projection.key());
+        } finally {
+            current.projectionsLock.unlock();
+        }
+    }
+
+    private void onPublish(ExchangeRateSnapshot snapshot) {
+        recentRatesLock.lock();
+        try {
+            if (recentRates.put(snapshot.getPublishedAt(), snapshot.getRates()) != null) {
+                // two snapshots published within the same millisecond, a client holding
+                // either version gets the full snapshot
+                recentRates.put(snapshot.getPublishedAt(), null);
+            }
+            if (recentRates.size() > MAX_DELTA_BASES + 1) {
+                recentRates.remove(recentRates.keySet().iterator().next());
+            }
+        } finally {
+            recentRatesLock.unlock();
+        }
+        encode(snapshot);
+    }
+
+    private List<ExchangeRate> getRecentRates(long version) {
+        recentRatesLock.lock();
+        try {
+            return recentRates.get(version);
+        } finally {
+            recentRatesLock.unlock();
+        }
+    }
+
+    private Body encodeProtobuf(ExchangeRateSnapshot snapshot, long baseVersion, List<ExchangeRate> baseRates) {
+        ResponseEncodingEvent event = new ResponseEncodingEvent();
+        event.begin();
+        byte[] bytes = baseRates == null
+                ? MarketPricesProto.encode(snapshot)
+                : MarketPricesProto.encodeDelta(snapshot, baseVersion, baseRates);
+        event.finish(baseRates == null ? "/getAllMarketPrices protobuf" : "/getAllMarketPrices protobuf delta", bytes.length);
+        return body(snapshot, bytes);
+    }
+
+    private void encode(ExchangeRateSnapshot snapshot) {
+        ResponseEncodingEvent event = new ResponseEncodingEvent();
+        event.begin();
+        byte[] allMarketPrices;
+        jsonLock.lock();
+        try {
+            MarketPricesJson.write(snapshot, json.reset());
+            allMarketPrices = json.toByteArray();
+        } finally {
+            jsonLock.unlock();
+        }
+        event.finish("/getAllMarketPrices", allMarketPrices.length);
+        encoded = new Encoded(snapshot, body(snapshot, allMarketPrices), maxProjections);
+    }
+
+    private static Body body(ExchangeRateSnapshot snapshot, byte[] bytes) {
+        String eTag = "\"" + Long.toHexString(snapshot.getPublishedAt()) + "-" + Integer.toHexString(Arrays.hashCode(bytes)) + "\"";
+        return new Body(bytes, eTag, snapshot.getPublishedAt());
+    }
+
+    /**
+     * True if the If-None-Match header value lists the entity tag, weak or strong, or
+     * is "*".
+     */
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * An encoded response body, its entity tag and the publish time of its snapshot.
+     */
+    public static final class Body {
+        private final byte[] bytes;
+        private final String eTag;
+        private final long lastModified;
+
+        private Body(byte[] bytes, String eTag, long lastModified) {
+            this.bytes = bytes;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+        }
+
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return the quoted entity tag
+         */
+        public String getETag() {
+            return eTag;
+        }
+    }
+
+    private static class Encoded {
+        private final ExchangeRateSnapshot snapshot;
+        private final Body allMarketPrices;
+        private volatile Body protobuf;
+        // by base version
+        private final Map<Long, Body> deltas = new ConcurrentHashMap<>();
+        // by projection key, in least recently used order
+        private final Map<String, Body> projections;
+        private final ReentrantLock projectionsLock = new ReentrantLock();
+
+        private Encoded(ExchangeRateSnapshot snapshot, Body allMarketPrices, int maxProjections) {
+            this.snapshot = snapshot;
+            this.allMarketPrices = allMarketPrices;
+            this.projections = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Body> eldest) {
+                    return size() > maxProjections;
+                }
+            };
+        }
+    }
+}
@@ -19,23 +19,61 @@ package haveno.price.spot;
 
 import haveno.common.config.Config;
 import haveno.price.PriceController;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.Map;
+import java.util.Optional;
 
+/**
+ * Serves the market prices from Tomcat. With spring.main.web-application-type=reactive
+ * they are served by the functional routes of {@link haveno.price.ReactiveRoutes} instead.
+ */
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 class ExchangeRateController extends PriceController {
 
-    private final ExchangeRateService exchangeRateService;
+    private final EncodedSnapshots encodedSnapshots;
 
-    public ExchangeRateController(ExchangeRateService exchangeRateService) {
-        this.exchangeRateService = exchangeRateService;
+    public ExchangeRateController(EncodedSnapshots encodedSnapshots) {
+        this.encodedSnapshots = encodedSnapshots;
     }
 
+    /**
+     * @param currencies comma separated currency codes to return the rates of, all if
+     *                   not given
+     * @param metadata   false to leave out the provider metadata fields
+     */
     @GetMapping(path = "/getAllMarketPrices")
-    public Map<String, Object> getAllMarketPrices() {
-        return exchangeRateService.getAllMarketPrices();
+    public ResponseEntity<byte[]> getAllMarketPrices(@RequestParam(required = false) String currencies,
+                                                     @RequestParam(defaultValue = "true") boolean metadata) {
+        Optional<MarketPricesProjection> projection = MarketPricesProjection.of(currencies, metadata);
+        if (projection.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return response(encodedSnapshots.getAllMarketPrices(projection.get()), MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * @param since version of a snapshot the client holds, to receive a delta to it
+     */
+    @GetMapping(path = "/getAllMarketPrices", produces = EncodedSnapshots.PROTOBUF)
+    public ResponseEntity<byte[]> getAllMarketPricesProtobuf(@RequestParam(required = false) Long since) {
+        return response(encodedSnapshots.getAllMarketPricesProtobuf(since), MediaType.parseMediaType(EncodedSnapshots.PROTOBUF));
+    }
+
+    private ResponseEntity<byte[]> response(EncodedSnapshots.Body body, MediaType contentType) {
+        // answered with 304 Not Modified if the request's If-None-Match lists the tag
+        return ResponseEntity.ok()
+                .eTag(body.getETag())
+                .headers(headers -> encodedSnapshots.setCacheHeaders(body, headers))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .contentType(contentType)
+                .body(body.getBytes());
     }
 
     static String translateFieldName(String name) {
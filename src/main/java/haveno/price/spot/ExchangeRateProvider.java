@@ -37,10 +37,19 @@ package haveno.price.spot;
 import haveno.core.locale.CurrencyUtil;
 import haveno.core.locale.TradeCurrency;
 import haveno.price.PriceProvider;
-import haveno.price.util.GatedLogging;
-import lombok.Getter;
+import haveno.price.util.LogSampler;
+import haveno.price.util.upstream.RequestDeferredException;
+import haveno.price.util.upstream.UpstreamCache;
+import haveno.price.util.upstream.UpstreamStandIn;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
 import org.knowm.xchange.Exchange;
 import org.knowm.xchange.ExchangeFactory;
+import org.knowm.xchange.ExchangeSpecification;
 import org.knowm.xchange.currency.Currency;
 import org.knowm.xchange.currency.CurrencyPair;
 import org.knowm.xchange.dto.marketdata.Ticker;
@@ -50,12 +59,17 @@ import org.knowm.xchange.service.marketdata.MarketDataService;
 import org.knowm.xchange.service.marketdata.params.CurrencyPairsParam;
 import org.knowm.xchange.service.marketdata.params.Params;
 import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.net.URI;
 import java.time.Duration;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -72,21 +86,35 @@ import java.util.stream.Stream;
  */
 public abstract class ExchangeRateProvider extends PriceProvider<Set<ExchangeRate>> {
 
-    private static final long STALE_PRICE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    static final long STALE_PRICE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    // the prices of some major pairs logged after a refresh, once per provider and pair
+    private static final LogSampler REFRESH_LOG_SAMPLER = new LogSampler(1, Duration.ofMinutes(10));
+    // by exchange class, looked up once as it instantiates the exchange
+    private static final Map<Class<? extends Exchange>, String> UPSTREAM_HOSTS = new ConcurrentHashMap<>();
     private static Set<String> SUPPORTED_CRYPTO_CURRENCIES = new HashSet<>();
     private static Set<String> SUPPORTED_FIAT_CURRENCIES = new HashSet<>();
     private final Set<String> providerExclusionList = new HashSet<>();
     private final String name;
     private final String prefix;
     private final Environment env;
-    @Getter
-    private final GatedLogging gatedLogging = new GatedLogging();
+    private final Optional<UpstreamCache> upstreamCache;
+    private final Optional<UpstreamStandIn> upstreamStandIn;
+    private final Counter staleRatesDropped;
+    private volatile long newestRateTimestamp;
 
     public ExchangeRateProvider(Environment env, String name, String prefix, Duration refreshInterval) {
         super(refreshInterval);
         this.name = name;
         this.prefix = prefix;
         this.env = env;
+        this.upstreamCache = UpstreamCache.of(env);
+        this.upstreamStandIn = UpstreamStandIn.of(env);
+        this.staleRatesDropped = Counter.builder("haveno.price.provider.stale.rates")
+                .description("Rates dropped because they were older than the stale price interval")
+                .tag("provider", name)
+                .register(Metrics.globalRegistry);
         String[] excludedByProvider =
                 env.getProperty("haveno.price.currency.excludedByProvider", "")
                         .toUpperCase().trim().split("\\s*,\\s*");
@@ -154,30 +182,104 @@ public abstract class ExchangeRateProvider extends PriceProvider<Set<ExchangeRat
         return prefix;
     }
 
-    public void maybeClearStaleRates() {
-        if (get() == null) {
+    /**
+     * Drop rates which are already stale before they become visible, and index this
+     * provider under the deadline of its oldest remaining rate, so that
+     * {@link StaleRateExpiry} evicts it once it turns stale. Runs under the lock of
+     * {@link #put} and {@link #compareAndPut}, so that the deadline and the newest rate
+     * timestamp always belong to the published rates.
+     */
+    @Override
+    protected Set<ExchangeRate> beforePut(Set<ExchangeRate> rates) {
+        if (rates == null) {
+            StaleRateExpiry.INSTANCE.cancel(this);
+            newestRateTimestamp = 0;
+            return null;
+        }
+        Set<ExchangeRate> nonStaleRates = removeStaleRates(rates, System.currentTimeMillis());
+        if (nonStaleRates != rates) {
+            logStaleRatesRemoved(rates, nonStaleRates);
+        }
+        LongSummaryStatistics timestamps = nonStaleRates.stream()
+                .mapToLong(ExchangeRate::getTimestamp)
+                .filter(timestamp -> timestamp != 0L)
+                .summaryStatistics();
+        if (timestamps.getCount() > 0) {
+            StaleRateExpiry.INSTANCE.schedule(this, timestamps.getMin() + STALE_PRICE_INTERVAL_MILLIS);
+            newestRateTimestamp = timestamps.getMax();
+        } else {
+            StaleRateExpiry.INSTANCE.cancel(this);
+            newestRateTimestamp = 0;
+        }
+        return nonStaleRates;
+    }
+
+    /**
+     * Called by {@link StaleRateExpiry} once the oldest rate of this provider is due.
+     * Publishes a new rate set only if something actually turned stale, and only if no
+     * refresh published other rates meanwhile, which then were indexed by their own
+     * deadline.
+     */
+    void evictStaleRates(long now) {
+        Set<ExchangeRate> rates = get();
+        if (rates == null) {
             return;
         }
+        Set<ExchangeRate> nonStaleRates = removeStaleRates(rates, now);
+        if (nonStaleRates != rates && compareAndPut(rates, nonStaleRates)) {
+            logStaleRatesRemoved(rates, nonStaleRates);
+        }
+    }
+
+    /**
+     * @return the rates which are not stale at the given time, the given set itself if
+     * none is stale
+     */
+    private static Set<ExchangeRate> removeStaleRates(Set<ExchangeRate> rates, long now) {
         // a stale rate is older than the specified interval, except:
         // timestamp of 0L is used as special case re: CoinMarketCap and BitcoinAverage
         //   (https://github.com/haveno-network/haveno-pricenode/issues/23)
-        long staleTimestamp = new Date().getTime() - STALE_PRICE_INTERVAL_MILLIS;
-        Set<ExchangeRate> nonStaleRates = get().stream()
-                    .filter(e -> e.getTimestamp() == 0L || e.getTimestamp() > staleTimestamp)
-                    .collect(Collectors.toSet());
-        long numberOriginalRates = get().size();
-        if (numberOriginalRates > nonStaleRates.size()) {
-            put(nonStaleRates);
-            log.warn("{} {} stale rates removed, now {} rates",
-                    getName(), numberOriginalRates, nonStaleRates.size());
+        long staleTimestamp = now - STALE_PRICE_INTERVAL_MILLIS;
+        if (rates.stream().noneMatch(e -> isStale(e, staleTimestamp))) {
+            return rates;
         }
+        return rates.stream()
+                .filter(e -> !isStale(e, staleTimestamp))
+                .collect(Collectors.toSet());
+    }
+
+    private void logStaleRatesRemoved(Set<ExchangeRate> rates, Set<ExchangeRate> nonStaleRates) {
+        log.warn("{} {} stale rates removed, now {} rates",
+                getName(), rates.size() - nonStaleRates.size(), nonStaleRates.size());
+        staleRatesDropped.increment(rates.size() - nonStaleRates.size());
+    }
+
+    @Override
+    protected String getMetricsName() {
+        return name;
+    }
+
+    @Override
+    protected long getNewestRateTimestamp() {
+        return newestRateTimestamp;
+    }
+
+    private static boolean isStale(ExchangeRate exchangeRate, long staleTimestamp) {
+        return exchangeRate.getTimestamp() != 0L && exchangeRate.getTimestamp() <= staleTimestamp;
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        StaleRateExpiry.INSTANCE.cancel(this);
     }
 
     @Override
     protected void onRefresh() {
         get().stream()
                 .filter(e -> "USD".equals(e.getCounterCurrency()) || "XMR".equals(e.getBaseCurrency()) || "ETH".equals(e.getBaseCurrency()) || "BCH".equals(e.getBaseCurrency()))
-                .forEach(e -> log.info("{}/{}: {}", e.getBaseCurrency(), e.getCounterCurrency(), e.getPrice()));
+                .forEach(e -> REFRESH_LOG_SAMPLER.info(log, name, e.getBaseCurrency() + "/" + e.getCounterCurrency(),
+                        "{}/{}: {}", e.getBaseCurrency(), e.getCounterCurrency(), e.getPrice()));
     }
 
     /**
@@ -188,22 +290,113 @@ public abstract class ExchangeRateProvider extends PriceProvider<Set<ExchangeRat
      * @see CurrencyUtil#getAllSortedFiatCurrencies()
      * @see CurrencyUtil#getAllSortedCryptoCurrencies()
      * It must not pass exceptions up, instead return an empty set if there is a problem with the feed.
-     * (otherwise PriceProvider would keep supplying stale rates).
+     * (otherwise PriceProvider would keep supplying stale rates). The only exception is a
+     * {@link RequestDeferredException}, thrown without polling the exchange while the
+     * current rates are still fresh, or when the request budget of the exchange is used
+     * up before the refresh. Creating the exchange, which loads its metadata, and every
+     * ticker request count against the budget. If the budget runs out while tickers are
+     * requested one by one, the tickers retrieved so far are published.
      */
     protected Set<ExchangeRate> doGet(Class<? extends Exchange> exchangeClass) {
+        upstreamCache.ifPresent(cache ->
+                cache.beforeFetch(getName(), getUpstreamHost(exchangeClass), getUpstreamTtl(), get() != null));
         try {
             return doGetInternal(exchangeClass);
+        } catch (RequestDeferredException e) {
+            throw e;
         } catch (Exception e) {
             log.warn(e.toString());
+            recordRefreshFailure(e);
         }
         return new HashSet<>();
     }
 
+    /**
+     * Retrieve and parse a JSON document, for providers which do not use the XChange
+     * library. If the upstream cache is enabled, a response stored less than
+     * {@link #getUpstreamTtl()} ago is reused and requests count against the host's
+     * request budget.
+     */
+    protected <R> R fetchJson(String url, Class<R> type) {
+        return parseJson(url, fetchBytes(url), OBJECT_MAPPER.getTypeFactory().constructType(type));
+    }
+
+    protected <R> R fetchJson(String url, TypeReference<R> type) {
+        return parseJson(url, fetchBytes(url), OBJECT_MAPPER.getTypeFactory().constructType(type));
+    }
+
+    private byte[] fetchBytes(String url) {
+        return upstreamCache
+                .map(cache -> cache.fetch(getName(), url, getUpstreamTtl(), () -> fetchUpstream(url)))
+                .orElseGet(() -> fetchUpstream(url));
+    }
+
+    private byte[] fetchUpstream(String url) {
+        return WebClient.create().get()
+                .uri(upstreamStandIn.map(standIn -> standIn.rewrite(url)).orElse(url))
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(byte[].class)
+                .block(Duration.of(30, ChronoUnit.SECONDS));
+    }
+
+    private static <R> R parseJson(String url, byte[] body, JavaType type) {
+        try {
+            return OBJECT_MAPPER.readValue(body, type);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not parse response of " + url, e);
+        }
+    }
+
+    /**
+     * @return age up to which a cached upstream response is reused, by default half the
+     * refresh interval so that regular refreshes always reach the upstream
+     */
+    protected Duration getUpstreamTtl() {
+        String ttlSeconds = env.getProperty("haveno.price.upstream.ttlSeconds." + name.toLowerCase());
+        return ttlSeconds == null ? refreshInterval.dividedBy(2) : Duration.ofSeconds(Long.parseLong(ttlSeconds));
+    }
+
+    private String getUpstreamHost(Class<? extends Exchange> exchangeClass) {
+        return UPSTREAM_HOSTS.computeIfAbsent(exchangeClass, c -> {
+            try {
+                String sslUri = c.getDeclaredConstructor().newInstance()
+                        .getDefaultExchangeSpecification().getSslUri();
+                return URI.create(sslUri).getHost();
+            } catch (Exception e) {
+                return name;
+            }
+        });
+    }
+
+    /**
+     * Count one more request to the exchange against its request budget.
+     *
+     * @throws RequestDeferredException if the budget is used up
+     */
+    private void beforeRequest(Class<? extends Exchange> exchangeClass) {
+        upstreamCache.ifPresent(cache -> cache.beforeRequest(getUpstreamHost(exchangeClass)));
+    }
+
+    /**
+     * @return the exchange, talking to the upstream stand-in instead of the exchange API
+     * if record or replay mode is enabled
+     */
+    protected Exchange createExchange(Class<? extends Exchange> exchangeClass) {
+        if (upstreamStandIn.isEmpty()) {
+            return ExchangeFactory.INSTANCE.createExchange(exchangeClass.getName());
+        }
+        ExchangeSpecification spec = ExchangeFactory.INSTANCE.createExchangeWithoutSpecification(exchangeClass.getName())
+                .getDefaultExchangeSpecification();
+        spec.setSslUri(upstreamStandIn.get().rewrite(spec.getSslUri()));
+        return ExchangeFactory.INSTANCE.createExchange(spec);
+    }
+
     private Set<ExchangeRate> doGetInternal(Class<? extends Exchange> exchangeClass) {
         Set<ExchangeRate> result = new HashSet<>();
 
         // Initialize XChange objects
-        Exchange exchange = ExchangeFactory.INSTANCE.createExchange(exchangeClass.getName());
+        Exchange exchange = createExchange(exchangeClass);
         MarketDataService marketDataService = exchange.getMarketDataService();
 
         // Retrieve all currency pairs supported by the exchange
@@ -233,6 +426,7 @@ public abstract class ExchangeRateProvider extends PriceProvider<Set<ExchangeRat
         // 2) it's easier to stay below any API rate limits the exchange might have
         List<Ticker> tickersRetrievedFromExchange = new ArrayList<>();
         try {
+            beforeRequest(exchangeClass);
             tickersRetrievedFromExchange = marketDataService.getTickers(new CurrencyPairsParam() {
 
                 /**
@@ -286,29 +480,39 @@ public abstract class ExchangeRateProvider extends PriceProvider<Set<ExchangeRat
 
             // In this case (retrieval of bulk tickers is not possible) retrieve the
             // tickers one by one
-            List<Ticker> finalTickersRetrievedFromExchange = tickersRetrievedFromExchange;
-            Stream.of(desiredFiatPairs, desiredCryptoPairs)
+            List<CurrencyPair> desiredPairs = Stream.of(desiredFiatPairs, desiredCryptoPairs)
                     .flatMap(Collection::stream)
-                    .forEach(cp -> {
-                        try {
-
-                            // This is done in a loop, and can therefore result in a burst
-                            // of API calls. Some exchanges do not allow bursts
-                            // A simplistic solution is to delay every call by 1 second
-                            // TODO Switch to using a more elegant solution (per exchange)
-                            // like ResilienceSpecification (needs knowm xchange libs v5)
-                            if (getMarketDataCallDelay() > 0) {
-                                Thread.sleep(getMarketDataCallDelay());
-                            }
-
-                            Ticker ticker = marketDataService.getTicker(cp);
-                            finalTickersRetrievedFromExchange.add(ticker);
-
-                        } catch (IOException | InterruptedException ioException) {
-                            ioException.printStackTrace();
-                            log.error("Could not query tickers for " + getName(), e);
-                        }
-                    });
+                    .collect(Collectors.toList());
+            for (CurrencyPair cp : desiredPairs) {
+                try {
+
+                    // This is done in a loop, and can therefore result in a burst
+                    // of API calls. Some exchanges do not allow bursts
+                    // A simplistic solution is to delay every call by 1 second
+                    // TODO Switch to using a more elegant solution (per exchange)
+                    // like ResilienceSpecification (needs knowm xchange libs v5)
+                    if (getMarketDataCallDelay() > 0) {
+                        Thread.sleep(getMarketDataCallDelay());
+                    }
+
+                    beforeRequest(exchangeClass);
+                    Ticker ticker = marketDataService.getTicker(cp);
+                    tickersRetrievedFromExchange.add(ticker);
+
+                } catch (RequestDeferredException deferred) {
+                    // the exchange was already polled for the tickers gathered so far,
+                    // publish those rather than dropping them
+                    log.info("Retrieved {} of {} tickers for {}, remaining ones deferred: {}",
+                            tickersRetrievedFromExchange.size(), desiredPairs.size(), getName(), deferred.getMessage());
+                    break;
+                } catch (IOException | InterruptedException tickerException) {
+                    if (tickerException instanceof InterruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                    log.error("Could not query ticker " + cp + " for " + getName(), tickerException);
+                    recordRefreshFailure(tickerException);
+                }
+            }
         } catch (ExchangeException | // Errors reported by the exchange (rate limit, etc)
                 IOException | // Errors while trying to connect to the API (timeouts, etc)
                 // Potential error when integrating new exchange (hints that exchange
@@ -319,8 +523,12 @@ public abstract class ExchangeRateProvider extends PriceProvider<Set<ExchangeRat
             // If there was a problem with polling this exchange, return right away,
             // since there are no results to parse and process
             log.error("Could not query tickers for provider " + getName(), e);
+            recordRefreshFailure(e);
             return result;
         }
+        if (!tickersRetrievedFromExchange.isEmpty()) {
+            upstreamCache.ifPresent(cache -> cache.recordFetch(getName()));
+        }
 
         // Create an ExchangeRate for each desired currency pair ticker that was retrieved
         Predicate<Ticker> isDesiredFiatPair = t -> desiredFiatPairs.contains(t.getCurrencyPair());
@@ -37,7 +37,10 @@ package haveno.price.spot;
 import haveno.common.util.Tuple2;
 import haveno.core.locale.CurrencyUtil;
 import haveno.core.util.InlierUtil;
-import haveno.price.util.GatedLogging;
+import haveno.price.ProviderResult;
+import haveno.price.jfr.AggregationPhaseEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
@@ -45,6 +48,10 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 /**
@@ -52,11 +59,43 @@ import java.util.stream.Collectors;
  */
 @Service
 @Slf4j
-class ExchangeRateService {
+public class ExchangeRateService {
+    public interface SnapshotListener {
+        void onPublish(ExchangeRateSnapshot snapshot);
+
+        /**
+         * Called with a snapshot restored from before a restart, which is served but
+         * not published, as it holds no new data.
+         */
+        default void onRestore(ExchangeRateSnapshot snapshot) {
+        }
+    }
+
+    // provider of rates averaged over several providers, stamped with their build time
+    static final String AGGREGATE_PROVIDER = "Haveno-Aggregate";
+
     private final Environment env;
     private final List<ExchangeRateProvider> providers;
     private final List<ExchangeRateTransformer> transformers;
-    private final GatedLogging gatedLogging = new GatedLogging();
+    private final Map<String, ExchangeRateTransformer> transformersByCurrency = new HashMap<>();
+    private final Map<ExchangeRateProvider, TransformedRates> transformedRates = new ConcurrentHashMap<>();
+    private final AtomicLong transformerGeneration = new AtomicLong();
+    private final Map<String, Counter> outlierCounters = new ConcurrentHashMap<>();
+
+    private final List<SnapshotListener> snapshotListeners = new CopyOnWriteArrayList<>();
+    // not a monitor, since the listeners run while it is held and do I/O, and a virtual
+    // thread would stay pinned to its carrier while holding a monitor
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    private volatile ExchangeRateSnapshot snapshot;
+    // provider versions the snapshot was built from, null if restored
+    private ProviderView snapshotView;
+    private volatile boolean snapshotOutdated;
+    // true once a snapshot built from provider updates was published
+    private boolean live;
+    private boolean restoring;
+    // indexes the aggregate rates of a restored snapshot with StaleRateExpiry
+    private final Object restoredRatesKey = new Object();
 
     /**
      * Construct an {@link ExchangeRateService} with a list of all
@@ -72,45 +111,273 @@ class ExchangeRateService {
         this.env = env;
         this.providers = providers;
         this.transformers = transformers;
+        transformers.forEach(t -> transformersByCurrency.putIfAbsent(t.supportedCurrency(), t));
+        // built eagerly from whatever the providers hold, usually nothing, so that
+        // requests only ever read the published snapshot
+        snapshotView = ProviderView.read(providers, transformerGeneration.get());
+        snapshot = buildSnapshot(snapshotView);
+        transformers.forEach(t -> t.addUpdateListener(this::onTransformerUpdate));
+        providers.forEach(p -> p.addUpdateListener(() -> onProviderUpdate(p)));
     }
 
     public Map<String, Object> getAllMarketPrices() {
+        return getSnapshot().getAllMarketPrices();
+    }
+
+    /**
+     * @return the snapshot built from the latest provider data. Rebuilt on the thread of
+     * a provider refresh, transformer update or stale rate eviction, never by a request.
+     */
+    public ExchangeRateSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Register a listener which is called, in publish order, with every snapshot built
+     * from live provider data. Listeners run on the thread which triggered the rebuild
+     * and must hand off any slow work.
+     */
+    public void addSnapshotListener(SnapshotListener listener) {
+        snapshotListeners.add(listener);
+    }
+
+    /**
+     * @return time in millis at which the first provider refreshes next, after which the
+     * snapshot may change, or 0 if no provider was started
+     */
+    public long getNextRefreshAt() {
+        long next = 0;
+        for (ExchangeRateProvider provider : providers) {
+            long at = provider.getNextRefreshAt();
+            if (at > 0 && (next == 0 || at < next)) {
+                next = at;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Serve a previously published snapshot until the providers deliver live data. The
+     * restored provider rates go through the usual stale rate eviction, and so do the
+     * restored aggregate rates.
+     *
+     * @param restored snapshot as it was published before a restart
+     */
+    void restore(ExchangeRateSnapshot restored) {
+        snapshotLock.lock();
+        try {
+            if (live) {
+                // live data was published already
+                return;
+            }
+            restoring = true;
+            try {
+                providers.stream()
+                        .filter(p -> p.get() == null)
+                        .forEach(p -> {
+                            Set<ExchangeRate> providerRates = restored.getProviderRates().get(p.getName());
+                            if (providerRates != null) p.put(providerRates);
+                        });
+            } finally {
+                restoring = false;
+            }
+            List<ExchangeRate> aggregateExchangeRates = removeStaleRates(restored.getRates(), System.currentTimeMillis());
+            ProviderView view = ProviderView.read(providers, transformerGeneration.get());
+            snapshot = new ExchangeRateSnapshot(restored.getPublishedAt(), getProviderRates(view), getAllMetadata(view), aggregateExchangeRates);
+            snapshotView = null;
+            snapshotOutdated = false;
+            scheduleRestoredRatesExpiry(aggregateExchangeRates);
+            publishRestored();
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * Called by {@link StaleRateExpiry} once the oldest aggregate rate of the restored
+     * snapshot is due. Does nothing once live data was published.
+     */
+    private void evictStaleRestoredRates(long now) {
+        snapshotLock.lock();
+        try {
+            if (live) {
+                return;
+            }
+            List<ExchangeRate> rates = snapshot.getRates();
+            List<ExchangeRate> nonStaleRates = removeStaleRates(rates, now);
+            scheduleRestoredRatesExpiry(nonStaleRates);
+            if (nonStaleRates.size() == rates.size()) {
+                return;
+            }
+            snapshot = new ExchangeRateSnapshot(snapshot.getPublishedAt(), snapshot.getProviderRates(), snapshot.getMetadata(), nonStaleRates);
+            publishRestored();
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    private void scheduleRestoredRatesExpiry(List<ExchangeRate> rates) {
+        long oldest = rates.stream()
+                .mapToLong(ExchangeRate::getTimestamp)
+                .filter(t -> t != 0L)
+                .min()
+                .orElse(0L);
+        if (oldest == 0L) {
+            StaleRateExpiry.INSTANCE.cancel(restoredRatesKey);
+        } else {
+            StaleRateExpiry.INSTANCE.schedule(restoredRatesKey, "restored snapshot", this::evictStaleRestoredRates,
+                    oldest + ExchangeRateProvider.STALE_PRICE_INTERVAL_MILLIS);
+        }
+    }
+
+    private void publishRestored() {
+        for (SnapshotListener listener : snapshotListeners) {
+            try {
+                listener.onRestore(snapshot);
+            } catch (Throwable t) {
+                log.warn("Snapshot listener failed", t);
+            }
+        }
+    }
+
+    private static List<ExchangeRate> removeStaleRates(List<ExchangeRate> rates, long now) {
+        long staleTimestamp = now - ExchangeRateProvider.STALE_PRICE_INTERVAL_MILLIS;
+        return rates.stream()
+                .filter(r -> r.getTimestamp() == 0L || r.getTimestamp() > staleTimestamp)
+                .collect(Collectors.toList());
+    }
+
+    private void onProviderUpdate(ExchangeRateProvider provider) {
+        // transform on the refresh thread, so the snapshot build can reuse the result
+        long generation = transformerGeneration.get();
+        getTransformedRates(provider, provider.get(), generation);
+        snapshotOutdated = true;
+        rebuildSnapshot();
+    }
+
+    private void onTransformerUpdate() {
+        transformerGeneration.incrementAndGet();
+        snapshotOutdated = true;
+        rebuildSnapshot();
+    }
+
+    private void rebuildSnapshot() {
+        snapshotLock.lock();
+        try {
+            if (restoring) {
+                return;
+            }
+            if (snapshotOutdated) {
+                snapshotOutdated = false;
+                ProviderView view = ProviderView.read(providers, transformerGeneration.get());
+                if (view.hasSameVersions(snapshotView)) {
+                    // e.g. a second update notification for results already built into it
+                    return;
+                }
+                snapshot = buildSnapshot(view);
+                snapshotView = view;
+                if (!live) {
+                    live = true;
+                    StaleRateExpiry.INSTANCE.cancel(restoredRatesKey);
+                }
+                for (SnapshotListener listener : snapshotListeners) {
+                    try {
+                        listener.onPublish(snapshot);
+                    } catch (Throwable t) {
+                        log.warn("Snapshot listener failed", t);
+                    }
+                }
+            }
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * @param view results of all providers to build the snapshot from, read once so
+     *             that the snapshot cannot mix two results of the same provider
+     */
+    private ExchangeRateSnapshot buildSnapshot(ProviderView view) {
+        long publishedAt = System.currentTimeMillis();
+        Map<String, Set<ExchangeRate>> providerRates = getProviderRates(view);
+
+        // fetch all exchange rates
+        AggregationPhaseEvent phase = AggregationPhaseEvent.start(AggregationPhaseEvent.COLLECT);
+        Map<String, Map<String, List<ExchangeRate>>> exchangeRates = getAllExchangeRates(view);
+        phase.finish(countPairs(exchangeRates));
+
+        // aggregate the rates of each pair
+        phase = AggregationPhaseEvent.start(AggregationPhaseEvent.AGGREGATE);
+        Map<String, Map<String, PairDiagnostics.Aggregation>> aggregations = new HashMap<>();
+        Map<String, Map<String, ExchangeRate>> aggregateRates = getAggregateExchangeRates(exchangeRates, aggregations);
+        phase.finish(countPairs(aggregateRates));
 
         // get aggregate exchange rates for xmr
-        List<ExchangeRate> aggregateExchangeRates = getAggregateExchangeRatesXmr();
+        phase = AggregationPhaseEvent.start(AggregationPhaseEvent.TRANSLATE);
+        Map<String, Map<String, PairDiagnostics>> diagnostics = new HashMap<>();
+        List<ExchangeRate> aggregateExchangeRates = getAggregateExchangeRatesXmr(aggregateRates, aggregations, diagnostics);
+        phase.finish(aggregateExchangeRates.size());
+
+        phase = AggregationPhaseEvent.start(AggregationPhaseEvent.SORT);
         aggregateExchangeRates.sort(Comparator.comparing(ExchangeRate::getBaseCurrency).thenComparing(ExchangeRate::getCounterCurrency));
+        phase.finish(aggregateExchangeRates.size());
+
+        phase = AggregationPhaseEvent.start(AggregationPhaseEvent.METADATA);
+        Map<String, Object> metadata = getAllMetadata(view);
+        phase.finish(metadata.size());
+
+        return new ExchangeRateSnapshot(publishedAt, providerRates, metadata, aggregateExchangeRates, diagnostics);
+    }
+
+    private static int countPairs(Map<String, ? extends Map<String, ?>> ratesByPair) {
+        int pairs = 0;
+        for (Map<String, ?> ratesByCounterCurrency : ratesByPair.values()) {
+            pairs += ratesByCounterCurrency.size();
+        }
+        return pairs;
+    }
 
-        // get metadata
+    private Map<String, Set<ExchangeRate>> getProviderRates(ProviderView view) {
+        Map<String, Set<ExchangeRate>> providerRates = new LinkedHashMap<>();
+        for (int i = 0; i < providers.size(); i++) {
+            Set<ExchangeRate> rates = view.getRates(i);
+            if (rates != null) providerRates.put(providers.get(i).getName(), rates);
+        }
+        return providerRates;
+    }
+
+    private Map<String, Object> getAllMetadata(ProviderView view) {
         Map<String, Object> metadata = new LinkedHashMap<>();
-        providers.forEach(p -> {
-            p.maybeClearStaleRates();
+        for (int i = 0; i < providers.size(); i++) {
             // Specific metadata fields for specific providers are expected by the client,
             // mostly for historical reasons
             // Therefore, add metadata fields for all known providers
             // Rates are encapsulated in the "data" map below
-            metadata.putAll(getMetadata(p));
-        });
-
-        // return result
-        LinkedHashMap<String, Object> result = new LinkedHashMap<>(metadata);
-        result.put("data", aggregateExchangeRates);
-        return result;
+            metadata.putAll(getMetadata(providers.get(i), view.getRates(i)));
+        }
+        return metadata;
     }
 
-    private List<ExchangeRate> getAggregateExchangeRatesXmr() {
-
-        // fetch all aggregate rates
-        Map<String, Map<String, ExchangeRate>> aggregateRates = getAggregateExchangeRates();
+    /**
+     * @param aggregations aggregation of each pair in aggregateRates
+     * @param diagnostics  receives the diagnostics of each returned rate
+     */
+    private List<ExchangeRate> getAggregateExchangeRatesXmr(Map<String, Map<String, ExchangeRate>> aggregateRates,
+                                                            Map<String, Map<String, PairDiagnostics.Aggregation>> aggregations,
+                                                            Map<String, Map<String, PairDiagnostics>> diagnostics) {
 
         // translate each rate to xmr
         Map<String, Map<String, ExchangeRate>> xmrAggregateRates = new HashMap<>();
+        Translation translation = new Translation();
         aggregateRates.values().stream()
                 .flatMap(m -> m.values().stream())
                 .forEach(r -> {
-                    ExchangeRate rate = translateExchangeRateToXmr(r, aggregateRates);
+                    ExchangeRate rate = translateExchangeRateToXmr(r, aggregateRates, translation);
                     if (rate == null) return;
                     if (!xmrAggregateRates.containsKey(rate.getBaseCurrency())) xmrAggregateRates.put(rate.getBaseCurrency(), new HashMap<String, ExchangeRate>());
                     xmrAggregateRates.get(rate.getBaseCurrency()).put(rate.getCounterCurrency(), rate);
+                    diagnostics.computeIfAbsent(rate.getBaseCurrency(), c -> new HashMap<>())
+                            .put(rate.getCounterCurrency(), translation.toDiagnostics(rate, aggregations));
                 });
 
         // return xmr rates
@@ -119,7 +386,17 @@ class ExchangeRateService {
                 .collect(Collectors.toList());
     }
 
-    private ExchangeRate translateExchangeRateToXmr(ExchangeRate rate, Map<String, Map<String, ExchangeRate>> aggregateRates) {
+    ExchangeRate translateExchangeRateToXmr(ExchangeRate rate, Map<String, Map<String, ExchangeRate>> aggregateRates) {
+        return translateExchangeRateToXmr(rate, aggregateRates, null);
+    }
+
+    /**
+     * @param translation if not null, receives the operation and operands of the
+     *                    translation
+     */
+    private ExchangeRate translateExchangeRateToXmr(ExchangeRate rate,
+                                                    Map<String, Map<String, ExchangeRate>> aggregateRates,
+                                                    Translation translation) {
         String BTC = "BTC";
         String XMR = "XMR";
         String USD = "USD";
@@ -129,6 +406,7 @@ class ExchangeRateService {
             ExchangeRate xmrRate = aggregateRates.get(XMR).get(rate.getCounterCurrency());
             BigDecimal rateBD = new BigDecimal(xmrRate.getPrice());
             BigDecimal inverseRate = (rateBD.compareTo(BigDecimal.ZERO) > 0) ? BigDecimal.ONE.divide(rateBD, 8, RoundingMode.HALF_UP) : BigDecimal.ZERO;
+            if (translation != null) translation.set(PairDiagnostics.Operation.INVERT, xmrRate, null);
             return new ExchangeRate(
                     BTC,
                     XMR,
@@ -138,7 +416,10 @@ class ExchangeRateService {
         }
 
         // use direct rate if available
-        if (rate.getBaseCurrency().equals(XMR) || rate.getCounterCurrency().equals(XMR)) return rate;
+        if (rate.getBaseCurrency().equals(XMR) || rate.getCounterCurrency().equals(XMR)) {
+            if (translation != null) translation.set(PairDiagnostics.Operation.DIRECT, rate, null);
+            return rate;
+        }
 
         // translate to xmr
         ExchangeRate xmrBtcRate = aggregateRates.containsKey(XMR) ? aggregateRates.get(XMR).get(BTC) : null;
@@ -158,6 +439,7 @@ class ExchangeRateService {
                     log.warn("No XMR/BTC rate available");
                     return null;
                 }
+                if (translation != null) translation.set(PairDiagnostics.Operation.DIVIDE, cryptoBtcRate, xmrBtcRate);
                 return new ExchangeRate(
                         rate.getBaseCurrency(),
                         XMR,
@@ -172,6 +454,7 @@ class ExchangeRateService {
                     log.warn("No XMR/USD rate available");
                     return null;
                 }
+                if (translation != null) translation.set(PairDiagnostics.Operation.DIVIDE, cryptoUsdRate, xmrUsdRate);
                 return new ExchangeRate(
                     rate.getBaseCurrency(),
                     XMR,
@@ -192,6 +475,7 @@ class ExchangeRateService {
                 log.warn("No XMR/BTC rate available");
                 return null;
             }
+            if (translation != null) translation.set(PairDiagnostics.Operation.MULTIPLY, xmrBtcRate, btcFiatRate);
             return new ExchangeRate(
                     XMR,
                     rate.getCounterCurrency(),
@@ -208,13 +492,12 @@ class ExchangeRateService {
      * aggregate price = average of retrieved prices. If a single provider has rates for
      * the currency, then aggregate price = the rate from that provider.
      * 
+     * @param exchangeRates all {@link ExchangeRate}s from all providers
+     * @param aggregations  receives the aggregation of each pair
      * @return all aggregate {@link ExchangeRate}s
      */
-    private Map<String, Map<String, ExchangeRate>> getAggregateExchangeRates() {
-
-        // fetch all exchange rates
-        boolean maybeLogDetails = gatedLogging.gatingOperation();
-        Map<String, Map<String, List<ExchangeRate>>> exchangeRates = getAllExchangeRates();
+    private Map<String, Map<String, ExchangeRate>> getAggregateExchangeRates(Map<String, Map<String, List<ExchangeRate>>> exchangeRates,
+                                                                             Map<String, Map<String, PairDiagnostics.Aggregation>> aggregations) {
 
         // aggregate exchange rates
         Map<String, Map<String, ExchangeRate>> aggregateRates = new HashMap<>();
@@ -225,63 +508,81 @@ class ExchangeRateService {
                 if (exchangeRateList.isEmpty()) return;
 
                 // get aggregate rate
-                ExchangeRate aggregateRate;
-                if (exchangeRateList.size() == 1) aggregateRate = exchangeRateList.get(0);
-                else {
-                    double priceAvg = priceAverageWithOutliersRemoved(exchangeRateList, baseCurrencyCode + "/" + counterCurrencyCode, maybeLogDetails);
-                    aggregateRate = new ExchangeRate(
-                            baseCurrencyCode,
-                            counterCurrencyCode,
-                            BigDecimal.valueOf(priceAvg),
-                            new Date(),
-                            "Haveno-Aggregate");
+                PairDiagnostics.Aggregation aggregation;
+                if (exchangeRateList.size() == 1) {
+                    aggregation = new PairDiagnostics.Aggregation(exchangeRateList.get(0), exchangeRateList,
+                            Collections.emptyList(), Double.NaN, Double.NaN);
+                } else {
+                    aggregation = aggregateWithOutliersRemoved(baseCurrencyCode, counterCurrencyCode, exchangeRateList);
                 }
 
                 // put aggregate rate
                 if (!aggregateRates.containsKey(baseCurrencyCode)) aggregateRates.put(baseCurrencyCode, new HashMap<String, ExchangeRate>());
-                aggregateRates.get(baseCurrencyCode).put(counterCurrencyCode, aggregateRate);
+                aggregateRates.get(baseCurrencyCode).put(counterCurrencyCode, aggregation.getRate());
+                aggregations.computeIfAbsent(baseCurrencyCode, c -> new HashMap<>()).put(counterCurrencyCode, aggregation);
             });
         });
         return aggregateRates;
     }
 
-    private double priceAverageWithOutliersRemoved(
-            List<ExchangeRate> exchangeRateList, String contextInfo, boolean logOutliers) {
+    /**
+     * Average the rates of all providers for one pair, excluding the rates outside of
+     * the inlier range. The removed outliers are not logged but recorded in the
+     * returned aggregation, which is served by /diagnostics/{base}/{counter}.
+     */
+    PairDiagnostics.Aggregation aggregateWithOutliersRemoved(String baseCurrencyCode,
+                                                             String counterCurrencyCode,
+                                                             List<ExchangeRate> exchangeRateList) {
         final List<Double> yValues = exchangeRateList.stream().
                 mapToDouble(ExchangeRate::getPrice).boxed().collect(Collectors.toList());
         Tuple2<Double, Double> tuple = InlierUtil.findInlierRange(yValues, 0, getOutlierStdDeviation());
         double lowerBound = tuple.first;
         double upperBound = tuple.second;
-        final List<ExchangeRate> filteredPrices = exchangeRateList.stream()
-                .filter(e -> e.getPrice() >= lowerBound)
-                .filter(e -> e.getPrice() <= upperBound)
-                .collect(Collectors.toList());
+        final List<ExchangeRate> filteredPrices = new ArrayList<>(exchangeRateList.size());
+        List<ExchangeRate> outliers = Collections.emptyList();
+        for (ExchangeRate rate : exchangeRateList) {
+            if (rate.getPrice() >= lowerBound && rate.getPrice() <= upperBound) {
+                filteredPrices.add(rate);
+            } else {
+                if (outliers.isEmpty()) outliers = new ArrayList<>(2);
+                outliers.add(rate);
+            }
+        }
 
+        double priceAvg;
         if (filteredPrices.size() < 1) {
-            log.error("{}: could not filter, revert to plain average. lowerBound={}, upperBound={}, stdDev={}, yValues={}",
-                    contextInfo, lowerBound, upperBound, getOutlierStdDeviation(), yValues);
-            return exchangeRateList.stream().mapToDouble(ExchangeRate::getPrice).average().getAsDouble();
+            log.error("{}/{}: could not filter, revert to plain average. lowerBound={}, upperBound={}, stdDev={}, yValues={}",
+                    baseCurrencyCode, counterCurrencyCode, lowerBound, upperBound, getOutlierStdDeviation(), yValues);
+            priceAvg = exchangeRateList.stream().mapToDouble(ExchangeRate::getPrice).average().getAsDouble();
+            outliers = Collections.emptyList();
+        } else {
+            // List size > 0, so the average is always set
+            priceAvg = filteredPrices.stream().mapToDouble(ExchangeRate::getPrice).average().orElseThrow(IllegalStateException::new);
         }
 
-        OptionalDouble opt = filteredPrices.stream().mapToDouble(ExchangeRate::getPrice).average();
-        // List size > 1, so opt is always set
-        double priceAvg = opt.orElseThrow(IllegalStateException::new);
-
-        // log the outlier prices which were removed from the average, if any.
-        if (logOutliers) {
-            for (ExchangeRate badRate : exchangeRateList.stream()
-                    .filter(e -> !filteredPrices.contains(e))
-                    .collect(Collectors.toList())) {
-                log.info("{} {} outlier price removed:{}, lower/upper bounds:{}/{}, consensus price:{}",
-                        badRate.getProvider(),
-                        badRate.getBaseCurrency() + "/" + badRate.getCounterCurrency(),
-                        badRate.getPrice(),
-                        lowerBound,
-                        upperBound,
-                        priceAvg);
-            }
+        if (!outliers.isEmpty()) {
+            outlierCounter(baseCurrencyCode, counterCurrencyCode).increment(outliers.size());
+        }
+
+        ExchangeRate aggregateRate = new ExchangeRate(
+                baseCurrencyCode,
+                counterCurrencyCode,
+                BigDecimal.valueOf(priceAvg),
+                new Date(),
+                AGGREGATE_PROVIDER);
+        return new PairDiagnostics.Aggregation(aggregateRate, exchangeRateList, outliers, lowerBound, upperBound);
+    }
+
+    private Counter outlierCounter(String baseCurrencyCode, String counterCurrencyCode) {
+        String pair = baseCurrencyCode + "/" + counterCurrencyCode;
+        Counter counter = outlierCounters.get(pair);
+        if (counter == null) {
+            counter = outlierCounters.computeIfAbsent(pair, p -> Counter.builder("haveno.price.aggregate.outliers")
+                    .description("Provider rates removed as outliers from the aggregate")
+                    .tag("pair", p)
+                    .register(Metrics.globalRegistry));
         }
-        return priceAvg;
+        return counter;
     }
 
     private double getOutlierStdDeviation() {
@@ -291,10 +592,10 @@ class ExchangeRateService {
     /**
      * @return All {@link ExchangeRate}s from all providers.
      */
-    private Map<String, Map<String, List<ExchangeRate>>> getAllExchangeRates() {
+    private Map<String, Map<String, List<ExchangeRate>>> getAllExchangeRates(ProviderView view) {
         Map<String, Map<String, List<ExchangeRate>>> exchangeRates = new HashMap<>();
-        for (ExchangeRateProvider p : providers) {
-            Set<ExchangeRate> providerRates = p.get();
+        for (int i = 0; i < providers.size(); i++) {
+            Set<ExchangeRate> providerRates = getTransformedRates(providers.get(i), view.getRates(i), view.transformerGeneration);
             if (providerRates == null) continue;
             for (ExchangeRate providerRate : providerRates) {
                 if (!exchangeRates.containsKey(providerRate.getBaseCurrency())) exchangeRates.put(providerRate.getBaseCurrency(), new HashMap<String, List<ExchangeRate>>());
@@ -310,7 +611,127 @@ class ExchangeRateService {
         return exchangeRates;
     }
 
-    private Map<String, Object> getMetadata(ExchangeRateProvider provider) {
+    /**
+     * @return the provider's rates with the {@link ExchangeRateTransformer} registered
+     * for their counter currency applied. The result is cached until either the provider
+     * publishes new rates or a transformer reports a change of its input.
+     *
+     * @param providerRates the provider's rates as read by the caller
+     * @param generation    transformer generation, read before the provider's rates
+     */
+    private Set<ExchangeRate> getTransformedRates(ExchangeRateProvider provider, Set<ExchangeRate> providerRates, long generation) {
+        TransformedRates cached = transformedRates.get(provider);
+        if (cached != null && cached.source == providerRates && cached.generation == generation) {
+            return cached.rates;
+        }
+        TransformedRates transformed = new TransformedRates(providerRates, generation, transform(provider, providerRates));
+        transformedRates.put(provider, transformed);
+        return transformed.rates;
+    }
+
+    private Set<ExchangeRate> transform(ExchangeRateProvider provider, Set<ExchangeRate> providerRates) {
+        if (providerRates == null || transformersByCurrency.isEmpty()) {
+            return providerRates;
+        }
+        Set<ExchangeRate> result = new HashSet<>();
+        for (ExchangeRate providerRate : providerRates) {
+            ExchangeRateTransformer transformer = transformersByCurrency.get(providerRate.getCounterCurrency());
+            if (transformer == null) {
+                result.add(providerRate);
+            } else {
+                transformer.apply(provider, providerRate).ifPresent(result::add);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Operation and operands of the translation of one rate to XMR, reused for all
+     * rates of a snapshot.
+     */
+    private static class Translation {
+        private PairDiagnostics.Operation operation;
+        private ExchangeRate first;
+        private ExchangeRate second;
+
+        private void set(PairDiagnostics.Operation operation, ExchangeRate first, ExchangeRate second) {
+            this.operation = operation;
+            this.first = first;
+            this.second = second;
+        }
+
+        private PairDiagnostics toDiagnostics(ExchangeRate rate, Map<String, Map<String, PairDiagnostics.Aggregation>> aggregations) {
+            List<PairDiagnostics.Aggregation> sources = new ArrayList<>(2);
+            addSource(first, aggregations, sources);
+            addSource(second, aggregations, sources);
+            return new PairDiagnostics(rate, operation, sources);
+        }
+
+        private static void addSource(ExchangeRate operand,
+                                      Map<String, Map<String, PairDiagnostics.Aggregation>> aggregations,
+                                      List<PairDiagnostics.Aggregation> sources) {
+            if (operand == null) return;
+            Map<String, PairDiagnostics.Aggregation> byCounterCurrency = aggregations.get(operand.getBaseCurrency());
+            PairDiagnostics.Aggregation aggregation = byCounterCurrency == null ? null : byCounterCurrency.get(operand.getCounterCurrency());
+            if (aggregation != null) sources.add(aggregation);
+        }
+    }
+
+    /**
+     * Results of all providers, in provider order, and the transformer generation, read
+     * once per snapshot build.
+     */
+    private static class ProviderView {
+        private final List<ProviderResult<Set<ExchangeRate>>> results;
+        private final long transformerGeneration;
+
+        private ProviderView(List<ProviderResult<Set<ExchangeRate>>> results, long transformerGeneration) {
+            this.results = results;
+            this.transformerGeneration = transformerGeneration;
+        }
+
+        /**
+         * @param transformerGeneration read before the provider results, so that a
+         *                              transformer update during the read is not missed
+         */
+        private static ProviderView read(List<ExchangeRateProvider> providers, long transformerGeneration) {
+            List<ProviderResult<Set<ExchangeRate>>> results = new ArrayList<>(providers.size());
+            for (ExchangeRateProvider provider : providers) {
+                results.add(provider.getResult());
+            }
+            return new ProviderView(results, transformerGeneration);
+        }
+
+        private Set<ExchangeRate> getRates(int providerIndex) {
+            return results.get(providerIndex).getValue();
+        }
+
+        private boolean hasSameVersions(ProviderView other) {
+            if (other == null || other.transformerGeneration != transformerGeneration) {
+                return false;
+            }
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i).getVersion() != other.results.get(i).getVersion()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class TransformedRates {
+        private final Set<ExchangeRate> source;
+        private final long generation;
+        private final Set<ExchangeRate> rates;
+
+        private TransformedRates(Set<ExchangeRate> source, long generation, Set<ExchangeRate> rates) {
+            this.source = source;
+            this.generation = generation;
+            this.rates = rates;
+        }
+    }
+
+    private Map<String, Object> getMetadata(ExchangeRateProvider provider, Set<ExchangeRate> exchangeRates) {
         Map<String, Object> metadata = new LinkedHashMap<>();
 
         // In case a provider is not available we still want to deliver the data of the
@@ -318,7 +739,6 @@ class ExchangeRateService {
         // Haveno app will check if the timestamp is in a tolerance window and if it is too
         // old it will show that the price is not available.
         long timestamp = 0;
-        Set<ExchangeRate> exchangeRates = provider.get();
         try {
             if (exchangeRates != null) {
                 timestamp = getTimestamp(provider, exchangeRates);
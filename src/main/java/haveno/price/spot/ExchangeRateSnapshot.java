@@ -0,0 +1,105 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable result of one aggregation over all {@link ExchangeRateProvider}s, as
+ * published by the {@link ExchangeRateService}.
+ */
+public class ExchangeRateSnapshot {
+
+    private final long publishedAt;
+    private final Map<String, Set<ExchangeRate>> providerRates;
+    private final Map<String, Object> metadata;
+    private final List<ExchangeRate> rates;
+    private final Map<String, Object> allMarketPrices;
+    // by base, then counter currency
+    private final Map<String, Map<String, PairDiagnostics>> diagnostics;
+
+    /**
+     * @param publishedAt   time in millis at which the snapshot was built
+     * @param providerRates rates of each provider the aggregate was built from, by
+     *                      provider name
+     * @param metadata      per provider metadata fields, in response order
+     * @param rates         aggregate XMR rates, sorted by base and counter currency
+     */
+    public ExchangeRateSnapshot(long publishedAt,
+                                Map<String, Set<ExchangeRate>> providerRates,
+                                Map<String, Object> metadata,
+                                List<ExchangeRate> rates) {
+        this(publishedAt, providerRates, metadata, rates, Collections.emptyMap());
+    }
+
+    /**
+     * @param diagnostics how each of the rates was aggregated, by base and counter
+     *                    currency
+     */
+    public ExchangeRateSnapshot(long publishedAt,
+                                Map<String, Set<ExchangeRate>> providerRates,
+                                Map<String, Object> metadata,
+                                List<ExchangeRate> rates,
+                                Map<String, Map<String, PairDiagnostics>> diagnostics) {
+        this.publishedAt = publishedAt;
+        this.providerRates = Collections.unmodifiableMap(providerRates);
+        this.metadata = Collections.unmodifiableMap(metadata);
+        this.rates = Collections.unmodifiableList(rates);
+        Map<String, Object> allMarketPrices = new LinkedHashMap<>(metadata);
+        allMarketPrices.put("data", this.rates);
+        this.allMarketPrices = Collections.unmodifiableMap(allMarketPrices);
+        this.diagnostics = diagnostics;
+    }
+
+    public long getPublishedAt() {
+        return publishedAt;
+    }
+
+    public Map<String, Set<ExchangeRate>> getProviderRates() {
+        return providerRates;
+    }
+
+    public Map<String, Object> getMetadata() {
+        return metadata;
+    }
+
+    public List<ExchangeRate> getRates() {
+        return rates;
+    }
+
+    /**
+     * @return how the rate of the given pair was aggregated, or null if the pair is
+     * not served or the snapshot was restored from before a restart
+     */
+    public PairDiagnostics getDiagnostics(String baseCurrency, String counterCurrency) {
+        Map<String, PairDiagnostics> byCounterCurrency = diagnostics.get(baseCurrency);
+        return byCounterCurrency == null ? null : byCounterCurrency.get(counterCurrency);
+    }
+
+    /**
+     * @return the metadata fields followed by the aggregate rates under "data", the
+     * response format expected by Haveno clients
+     */
+    public Map<String, Object> getAllMarketPrices() {
+        return allMarketPrices;
+    }
+}
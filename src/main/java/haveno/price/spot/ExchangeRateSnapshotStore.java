@@ -0,0 +1,187 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the latest published {@link ExchangeRateSnapshot} in a local file, so that a
+ * restarted node serves the last known rates right away instead of an empty response
+ * until every provider refreshed.
+ *
+ * The file is rewritten on a background thread after each publish, via a temporary
+ * file and an atomic rename, so a crash never leaves a partially written snapshot.
+ * Currency codes and provider names are written once into a string table.
+ */
+@Slf4j
+@Component
+class ExchangeRateSnapshotStore {
+
+    private static final int MAGIC = 0x48505331; // "HPS1"
+    private static final String FILE_NAME = "snapshot.bin";
+    static final String DEFAULT_DATA_DIR = System.getProperty("user.home") + "/.haveno-pricenode";
+
+    private final Path file;
+    private final ExecutorService writer;
+    private final AtomicReference<ExchangeRateSnapshot> pending = new AtomicReference<>();
+
+    public ExchangeRateSnapshotStore(Environment env, ExchangeRateService exchangeRateService) {
+        this.file = Paths.get(env.getProperty("haveno.price.dataDir", DEFAULT_DATA_DIR), FILE_NAME);
+        if (!env.getProperty("haveno.price.snapshot.enabled", Boolean.class, true)) {
+            this.writer = null;
+            return;
+        }
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "snapshot-store");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        read().ifPresent(snapshot -> {
+            exchangeRateService.restore(snapshot);
+            log.info("Restored snapshot from {} with {} rates of {} providers, published at {}",
+                    file, snapshot.getRates().size(), snapshot.getProviderRates().size(), new Date(snapshot.getPublishedAt()));
+        });
+        exchangeRateService.addSnapshotListener(this::onPublish);
+    }
+
+    private void onPublish(ExchangeRateSnapshot snapshot) {
+        // only the latest snapshot is of interest, skip any still waiting to be written
+        if (pending.getAndSet(snapshot) == null) {
+            writer.execute(() -> {
+                ExchangeRateSnapshot latest = pending.getAndSet(null);
+                if (latest != null) {
+                    write(latest);
+                }
+            });
+        }
+    }
+
+    void write(ExchangeRateSnapshot snapshot) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(FILE_NAME + ".tmp");
+            try (FileOutputStream fileOut = new FileOutputStream(tmp.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+                writeSnapshot(out, snapshot);
+                out.flush();
+                fileOut.getChannel().force(true);
+            }
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Could not write snapshot to {}: {}", file, e.toString());
+        }
+    }
+
+    Optional<ExchangeRateSnapshot> read() {
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return Optional.of(readSnapshot(in));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable snapshot {}: {}", file, e.toString());
+            return Optional.empty();
+        }
+    }
+
+    private static void writeSnapshot(DataOutputStream out, ExchangeRateSnapshot snapshot) throws IOException {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        snapshot.getProviderRates().forEach((name, rates) -> {
+            strings.putIfAbsent(name, strings.size());
+            rates.forEach(rate -> addStrings(strings, rate));
+        });
+        snapshot.getRates().forEach(rate -> addStrings(strings, rate));
+
+        out.writeInt(MAGIC);
+        out.writeLong(snapshot.getPublishedAt());
+        out.writeInt(strings.size());
+        for (String string : strings.keySet()) {
+            out.writeUTF(string);
+        }
+        out.writeInt(snapshot.getProviderRates().size());
+        for (Map.Entry<String, Set<ExchangeRate>> entry : snapshot.getProviderRates().entrySet()) {
+            out.writeInt(strings.get(entry.getKey()));
+            writeRates(out, strings, entry.getValue());
+        }
+        writeRates(out, strings, snapshot.getRates());
+    }
+
+    private static void addStrings(Map<String, Integer> strings, ExchangeRate rate) {
+        strings.putIfAbsent(rate.getBaseCurrency(), strings.size());
+        strings.putIfAbsent(rate.getCounterCurrency(), strings.size());
+        strings.putIfAbsent(rate.getProvider(), strings.size());
+    }
+
+    private static void writeRates(DataOutputStream out, Map<String, Integer> strings, Collection<ExchangeRate> rates)
+            throws IOException {
+        out.writeInt(rates.size());
+        for (ExchangeRate rate : rates) {
+            out.writeInt(strings.get(rate.getBaseCurrency()));
+            out.writeInt(strings.get(rate.getCounterCurrency()));
+            out.writeDouble(rate.getPrice());
+            out.writeLong(rate.getTimestamp());
+            out.writeInt(strings.get(rate.getProvider()));
+        }
+    }
+
+    private static ExchangeRateSnapshot readSnapshot(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a snapshot file");
+        }
+        long publishedAt = in.readLong();
+        String[] strings = new String[in.readInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = in.readUTF();
+        }
+        Map<String, Set<ExchangeRate>> providerRates = new LinkedHashMap<>();
+        int providerCount = in.readInt();
+        for (int i = 0; i < providerCount; i++) {
+            String name = strings[in.readInt()];
+            providerRates.put(name, new HashSet<>(readRates(in, strings)));
+        }
+        List<ExchangeRate> rates = readRates(in, strings);
+        return new ExchangeRateSnapshot(publishedAt, providerRates, Collections.emptyMap(), rates);
+    }
+
+    private static List<ExchangeRate> readRates(DataInputStream in, String[] strings) throws IOException {
+        int count = in.readInt();
+        List<ExchangeRate> rates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rates.add(new ExchangeRate(
+                    strings[in.readInt()],
+                    strings[in.readInt()],
+                    in.readDouble(),
+                    in.readLong(),
+                    strings[in.readInt()]));
+        }
+        return rates;
+    }
+}
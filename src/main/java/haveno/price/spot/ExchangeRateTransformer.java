@@ -28,4 +28,11 @@ public interface ExchangeRateTransformer {
     Optional<ExchangeRate> apply(ExchangeRateProvider provider, ExchangeRate exchangeRate);
 
     String supportedCurrency();
+
+    /**
+     * Register a listener to be notified whenever the input of this transformation
+     * changes, so that previously transformed rates can no longer be reused.
+     */
+    default void addUpdateListener(Runnable listener) {
+    }
 }
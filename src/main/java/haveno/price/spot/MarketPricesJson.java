@@ -0,0 +1,77 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot;
+
+import haveno.price.util.JsonWriter;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Writes the /getAllMarketPrices response of an {@link ExchangeRateSnapshot} straight
+ * into a {@link JsonWriter}, byte for byte as Jackson writes
+ * {@link ExchangeRateSnapshot#getAllMarketPrices()} without indentation, but without
+ * bean introspection, intermediate maps or boxing.
+ *
+ * Prices are written with {@link Double#toString(double)}, which since Java 19 yields
+ * the shortest decimal that rounds to the double, as Jackson's does.
+ */
+final class MarketPricesJson {
+
+    private MarketPricesJson() {
+    }
+
+    static void write(ExchangeRateSnapshot snapshot, JsonWriter json) {
+        write(snapshot, MarketPricesProjection.ALL, json);
+    }
+
+    /**
+     * Write the part of the response selected by the projection, in the same format.
+     */
+    static void write(ExchangeRateSnapshot snapshot, MarketPricesProjection projection, JsonWriter json) {
+        json.raw('{');
+        Map<String, Object> metadata = projection.includesMetadata() ? snapshot.getMetadata() : Collections.emptyMap();
+        for (Map.Entry<String, Object> field : metadata.entrySet()) {
+            json.string(field.getKey()).raw(':');
+            Object value = field.getValue();
+            if (value instanceof Long || value instanceof Integer) {
+                json.number(((Number) value).longValue());
+            } else if (value instanceof Double) {
+                json.number((double) value);
+            } else {
+                throw new IllegalArgumentException("Unsupported metadata value " + value + " of " + field.getKey());
+            }
+            json.raw(',');
+        }
+        json.raw("\"data\":[");
+        boolean first = true;
+        for (ExchangeRate rate : snapshot.getRates()) {
+            if (!projection.includes(rate)) {
+                continue;
+            }
+            json.raw(first ? "{\"baseCurrencyCode\":" : ",{\"baseCurrencyCode\":").string(rate.getBaseCurrency())
+                    .raw(",\"counterCurrencyCode\":").string(rate.getCounterCurrency())
+                    .raw(",\"price\":").number(rate.getPrice())
+                    .raw(",\"timestampSec\":").number(rate.getTimestamp())
+                    .raw(",\"provider\":").string(rate.getProvider())
+                    .raw('}');
+            first = false;
+        }
+        json.raw("]}");
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Part of the /getAllMarketPrices response requested by a client: the rates of some
+ * currencies only, and optionally without the provider metadata. Normalized, so that
+ * requests for the same part share one cached encoding whatever the order or case of
+ * their currencies.
+ */
+public final class MarketPricesProjection {
+
+    public static final MarketPricesProjection ALL = new MarketPricesProjection(null, true);
+
+    static final int MAX_CURRENCIES = 32;
+    private static final Pattern CURRENCY = Pattern.compile("[A-Z0-9._-]{1,16}");
+
+    // null for all
+    private final SortedSet<String> currencies;
+    private final boolean metadata;
+    private final String key;
+
+    private MarketPricesProjection(SortedSet<String> currencies, boolean metadata) {
+        this.currencies = currencies == null ? null : Collections.unmodifiableSortedSet(currencies);
+        this.metadata = metadata;
+        this.key = (currencies == null ? "*" : String.join(",", currencies)) + (metadata ? "" : ";nometadata");
+    }
+
+    /**
+     * @param currencies comma separated currency codes, of which a rate must have the
+     *                   base or counter currency, or null or empty for all rates
+     * @param metadata   false to leave out the provider metadata fields
+     * @return the projection, {@link #ALL} for the full response, or empty if the
+     * currencies are invalid or too many
+     */
+    public static Optional<MarketPricesProjection> of(String currencies, boolean metadata) {
+        SortedSet<String> codes = new TreeSet<>();
+        if (currencies != null) {
+            for (String code : currencies.split(",")) {
+                code = code.trim().toUpperCase();
+                if (code.isEmpty()) {
+                    continue;
+                }
+                if (!CURRENCY.matcher(code).matches()) {
+                    return Optional.empty();
+                }
+                codes.add(code);
+            }
+        }
+        if (codes.size() > MAX_CURRENCIES) {
+            return Optional.empty();
+        }
+        if (codes.isEmpty() && metadata) {
+            return Optional.of(ALL);
+        }
+        return Optional.of(new MarketPricesProjection(codes.isEmpty() ? null : codes, metadata));
+    }
+
+    public boolean isAll() {
+        return this == ALL;
+    }
+
+    boolean includesMetadata() {
+        return metadata;
+    }
+
+    boolean includes(ExchangeRate rate) {
+        return currencies == null
+                || currencies.contains(rate.getBaseCurrency())
+                || currencies.contains(rate.getCounterCurrency());
+    }
+
+    /**
+     * @return the normalized projection, equal for equal projections
+     */
+    String key() {
+        return key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof MarketPricesProjection other && key.equals(other.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return key.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
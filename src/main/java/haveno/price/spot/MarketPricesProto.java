@@ -0,0 +1,126 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot;
+
+import haveno.price.util.ProtoWriter;
+
+import java.util.*;
+
+/**
+ * Encodes an {@link ExchangeRateSnapshot} as the MarketPrices message of
+ * market_prices.proto, in full or as a delta to an earlier snapshot. Currency codes,
+ * provider names and metadata field names are written once into a string table and
+ * referenced by index.
+ */
+final class MarketPricesProto {
+
+    private MarketPricesProto() {
+    }
+
+    static byte[] encode(ExchangeRateSnapshot snapshot) {
+        return encode(snapshot, snapshot.getRates(), 0, Collections.emptyList());
+    }
+
+    /**
+     * @param baseVersion version of the snapshot the client holds
+     * @param baseRates   rates of that snapshot, sorted by base and counter currency
+     */
+    static byte[] encodeDelta(ExchangeRateSnapshot snapshot, long baseVersion, List<ExchangeRate> baseRates) {
+        Map<String, Map<String, ExchangeRate>> base = new HashMap<>();
+        for (ExchangeRate rate : baseRates) {
+            base.computeIfAbsent(rate.getBaseCurrency(), c -> new HashMap<>()).put(rate.getCounterCurrency(), rate);
+        }
+        List<ExchangeRate> changed = new ArrayList<>();
+        for (ExchangeRate rate : snapshot.getRates()) {
+            Map<String, ExchangeRate> byCounter = base.get(rate.getBaseCurrency());
+            ExchangeRate previous = byCounter == null ? null : byCounter.remove(rate.getCounterCurrency());
+            if (previous == null || !isUnchanged(rate, previous)) {
+                changed.add(rate);
+            }
+        }
+        // what is left of the base is no longer served
+        List<ExchangeRate> removed = new ArrayList<>();
+        for (ExchangeRate rate : baseRates) {
+            Map<String, ExchangeRate> byCounter = base.get(rate.getBaseCurrency());
+            if (byCounter.containsKey(rate.getCounterCurrency())) {
+                removed.add(rate);
+            }
+        }
+        return encode(snapshot, changed, baseVersion, removed);
+    }
+
+    /**
+     * Aggregates get a new timestamp on every build, so they only change with their
+     * price or provider. Rates of a single provider keep the timestamp it reported.
+     */
+    private static boolean isUnchanged(ExchangeRate rate, ExchangeRate previous) {
+        if (Double.compare(rate.getPrice(), previous.getPrice()) != 0
+                || !Objects.equals(rate.getProvider(), previous.getProvider())) {
+            return false;
+        }
+        return ExchangeRateService.AGGREGATE_PROVIDER.equals(rate.getProvider())
+                || rate.getTimestamp() == previous.getTimestamp();
+    }
+
+    private static byte[] encode(ExchangeRateSnapshot snapshot, List<ExchangeRate> rates,
+                                 long baseVersion, List<ExchangeRate> removed) {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        ProtoWriter out = new ProtoWriter(rates.size() * 24 + 1024);
+        ProtoWriter message = new ProtoWriter(64);
+        ProtoWriter body = new ProtoWriter(rates.size() * 24 + 512);
+
+        for (Map.Entry<String, Object> field : snapshot.getMetadata().entrySet()) {
+            message.reset()
+                    .int64(1, index(strings, field.getKey()))
+                    .int64(2, ((Number) field.getValue()).longValue());
+            body.message(2, message);
+        }
+        for (ExchangeRate rate : rates) {
+            message.reset()
+                    .int64(1, index(strings, rate.getBaseCurrency()))
+                    .int64(2, index(strings, rate.getCounterCurrency()))
+                    .float64(3, rate.getPrice())
+                    .int64(4, rate.getTimestamp())
+                    .int64(5, index(strings, rate.getProvider()));
+            body.message(3, message);
+        }
+        body.int64(4, snapshot.getPublishedAt());
+        body.int64(5, baseVersion);
+        for (ExchangeRate rate : removed) {
+            message.reset()
+                    .int64(1, index(strings, rate.getBaseCurrency()))
+                    .int64(2, index(strings, rate.getCounterCurrency()));
+            body.message(6, message);
+        }
+
+        // the string table goes first, so that clients can resolve indexes as they read
+        for (String string : strings.keySet()) {
+            out.string(1, string);
+        }
+        return out.fields(body).toByteArray();
+    }
+
+    private static int index(Map<String, Integer> strings, String string) {
+        Integer index = strings.get(string);
+        if (index == null) {
+            index = strings.size();
+            strings.put(string, index);
+        }
+        return index;
+    }
+}
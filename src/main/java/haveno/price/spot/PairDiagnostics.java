@@ -0,0 +1,160 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+package haveno.price.spot;
+
+import haveno.price.util.JsonWriter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * How the aggregate rate of one pair in an {@link ExchangeRateSnapshot} came about: the
+ * aggregate rates it was translated from to XMR, and for each of them the provider
+ * rates which contributed, the inlier bounds and the outliers which were removed.
+ * Recorded while the snapshot is built, so serving it costs no aggregation work.
+ */
+public class PairDiagnostics {
+
+    /**
+     * How the XMR rate is derived from the aggregate rates it was translated from.
+     */
+    public enum Operation {
+        // the aggregate rate is served as is
+        DIRECT,
+        // 1 / first
+        INVERT,
+        // first * second
+        MULTIPLY,
+        // first / second
+        DIVIDE;
+
+        private final String label = name().toLowerCase();
+    }
+
+    /**
+     * Aggregation of the rates of all providers for one pair.
+     */
+    public static class Aggregation {
+        private final ExchangeRate rate;
+        private final List<ExchangeRate> contributors;
+        private final List<ExchangeRate> outliers;
+        private final double lowerBound;
+        private final double upperBound;
+
+        /**
+         * @param rate         the aggregate rate
+         * @param contributors rates of all providers for the pair, including outliers
+         * @param outliers     rates removed from the average
+         * @param lowerBound   lower inlier bound, NaN if no outlier filtering was done
+         * @param upperBound   upper inlier bound, NaN if no outlier filtering was done
+         */
+        Aggregation(ExchangeRate rate, List<ExchangeRate> contributors, List<ExchangeRate> outliers,
+                    double lowerBound, double upperBound) {
+            this.rate = rate;
+            this.contributors = contributors;
+            this.outliers = outliers;
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+        }
+
+        public ExchangeRate getRate() {
+            return rate;
+        }
+
+        public List<ExchangeRate> getContributors() {
+            return Collections.unmodifiableList(contributors);
+        }
+
+        public List<ExchangeRate> getOutliers() {
+            return Collections.unmodifiableList(outliers);
+        }
+
+        public double getLowerBound() {
+            return lowerBound;
+        }
+
+        public double getUpperBound() {
+            return upperBound;
+        }
+
+        private void write(JsonWriter json) {
+            json.raw("{\"pair\":").string(rate.getBaseCurrency() + "/" + rate.getCounterCurrency())
+                    .raw(",\"price\":").number(rate.getPrice());
+            if (!Double.isNaN(lowerBound)) {
+                json.raw(",\"lowerBound\":").number(lowerBound)
+                        .raw(",\"upperBound\":").number(upperBound);
+            }
+            json.raw(",\"contributors\":");
+            writeRates(contributors, json);
+            json.raw(",\"outliers\":");
+            writeRates(outliers, json);
+            json.raw('}');
+        }
+
+        private static void writeRates(List<ExchangeRate> rates, JsonWriter json) {
+            json.raw('[');
+            for (int i = 0; i < rates.size(); i++) {
+                ExchangeRate rate = rates.get(i);
+                json.raw(i == 0 ? "{\"provider\":" : ",{\"provider\":").string(rate.getProvider())
+                        .raw(",\"price\":").number(rate.getPrice())
+                        .raw(",\"timestamp\":").number(rate.getTimestamp())
+                        .raw('}');
+            }
+            json.raw(']');
+        }
+    }
+
+    private final ExchangeRate rate;
+    private final Operation operation;
+    private final List<Aggregation> sources;
+
+    /**
+     * @param rate      the XMR rate as served
+     * @param operation how the rate is derived from the sources
+     * @param sources   aggregations the rate is derived from, in operand order
+     */
+    PairDiagnostics(ExchangeRate rate, Operation operation, List<Aggregation> sources) {
+        this.rate = rate;
+        this.operation = operation;
+        this.sources = sources;
+    }
+
+    public ExchangeRate getRate() {
+        return rate;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public List<Aggregation> getSources() {
+        return Collections.unmodifiableList(sources);
+    }
+
+    public void write(long publishedAt, JsonWriter json) {
+        json.raw("{\"pair\":").string(rate.getBaseCurrency() + "/" + rate.getCounterCurrency())
+                .raw(",\"price\":").number(rate.getPrice())
+                .raw(",\"publishedAt\":").number(publishedAt)
+                .raw(",\"operation\":").string(operation.label)
+                .raw(",\"sources\":[");
+        for (int i = 0; i < sources.size(); i++) {
+            if (i > 0) json.raw(',');
+            sources.get(i).write(json);
+        }
+        json.raw("]}");
+    }
+}
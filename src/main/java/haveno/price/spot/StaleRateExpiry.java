@@ -0,0 +1,128 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.function.LongConsumer;
+
+/**
+ * Time-indexed schedule of the moments at which {@link ExchangeRateProvider}s hold a
+ * rate that turns stale. Each provider is indexed once, by the deadline of its oldest
+ * rate, so a tick only looks at the head of the index and does no work at all until a
+ * deadline has actually passed. Eviction runs on a single daemon timer thread, never on
+ * a request thread. Other holders of rates, such as a restored snapshot, are indexed
+ * the same way under a key of their own.
+ */
+@Slf4j
+final class StaleRateExpiry {
+
+    static final StaleRateExpiry INSTANCE = new StaleRateExpiry();
+
+    private static final long TICK_MILLIS = 1000;
+
+    private final TreeMap<Long, Set<Object>> keysByDeadline = new TreeMap<>();
+    private final Map<Object, Entry> entries = new HashMap<>();
+    private Timer timer;
+
+    private StaleRateExpiry() {
+    }
+
+    /**
+     * Index the provider under the given deadline, replacing any deadline it was
+     * previously indexed under.
+     */
+    void schedule(ExchangeRateProvider provider, long deadline) {
+        schedule(provider, provider.getName(), provider::evictStaleRates, deadline);
+    }
+
+    /**
+     * Index the key under the given deadline, replacing any deadline it was previously
+     * indexed under.
+     *
+     * @param name  name of the rates, for logging
+     * @param evict evicts the stale rates, given the current time
+     */
+    synchronized void schedule(Object key, String name, LongConsumer evict, long deadline) {
+        unindex(key);
+        entries.put(key, new Entry(name, evict, deadline));
+        keysByDeadline.computeIfAbsent(deadline, d -> new HashSet<>()).add(key);
+        if (timer == null) {
+            timer = new Timer("stale-rate-expiry", true);
+            timer.scheduleAtFixedRate(new TimerTask() {
+                @Override
+                public void run() {
+                    tick(System.currentTimeMillis());
+                }
+            }, TICK_MILLIS, TICK_MILLIS);
+        }
+    }
+
+    synchronized void cancel(Object key) {
+        unindex(key);
+    }
+
+    void tick(long now) {
+        List<Entry> due;
+        synchronized (this) {
+            if (keysByDeadline.isEmpty() || keysByDeadline.firstKey() > now) {
+                return;
+            }
+            due = new ArrayList<>();
+            NavigableMap<Long, Set<Object>> expired = keysByDeadline.headMap(now, true);
+            for (Set<Object> keys : expired.values()) {
+                for (Object key : keys) {
+                    due.add(entries.remove(key));
+                }
+            }
+            expired.clear();
+        }
+        for (Entry entry : due) {
+            try {
+                entry.evict.accept(now);
+            } catch (Throwable t) {
+                log.warn("Could not evict stale rates of {}", entry.name, t);
+            }
+        }
+    }
+
+    private void unindex(Object key) {
+        Entry previous = entries.remove(key);
+        if (previous == null) {
+            return;
+        }
+        Set<Object> keys = keysByDeadline.get(previous.deadline);
+        keys.remove(key);
+        if (keys.isEmpty()) {
+            keysByDeadline.remove(previous.deadline);
+        }
+    }
+
+    private static final class Entry {
+        private final String name;
+        private final LongConsumer evict;
+        private final long deadline;
+
+        private Entry(String name, LongConsumer evict, long deadline) {
+            this.name = name;
+            this.evict = evict;
+            this.deadline = deadline;
+        }
+    }
+}
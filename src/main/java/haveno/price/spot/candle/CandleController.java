@@ -0,0 +1,63 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot.candle;
+
+import haveno.price.PriceController;
+import haveno.price.util.JsonWriter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Optional;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+class CandleController extends PriceController {
+
+    private final CandleService candleService;
+
+    public CandleController(CandleService candleService) {
+        this.candleService = candleService;
+    }
+
+    /**
+     * @param interval one of 1m, 5m, 1h or 1d
+     * @param limit    maximum number of the latest candles, which are returned oldest first
+     */
+    @GetMapping(path = "/candles/{base}/{counter}")
+    public ResponseEntity<byte[]> getCandles(@PathVariable String base,
+                                             @PathVariable String counter,
+                                             @RequestParam(defaultValue = "1h") String interval,
+                                             @RequestParam(defaultValue = "" + Integer.MAX_VALUE) int limit) {
+        Optional<CandleInterval> candleInterval = CandleInterval.ofLabel(interval);
+        if (candleInterval.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        JsonWriter json = new JsonWriter(4096);
+        if (!candleService.write(base.toUpperCase(), counter.toUpperCase(), candleInterval.get(), limit, json)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json.toByteArray());
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot.candle;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Candle intervals kept per currency pair, each with the number of candles retained.
+ */
+public enum CandleInterval {
+    ONE_MINUTE("1m", TimeUnit.MINUTES.toMillis(1), 1440),
+    FIVE_MINUTES("5m", TimeUnit.MINUTES.toMillis(5), 2016),
+    ONE_HOUR("1h", TimeUnit.HOURS.toMillis(1), 720),
+    ONE_DAY("1d", TimeUnit.DAYS.toMillis(1), 365);
+
+    private final String label;
+    private final long millis;
+    private final int capacity;
+
+    CandleInterval(String label, long millis, int capacity) {
+        this.label = label;
+        this.millis = millis;
+        this.capacity = capacity;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public static Optional<CandleInterval> ofLabel(String label) {
+        for (CandleInterval interval : values()) {
+            if (interval.label.equals(label)) {
+                return Optional.of(interval);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot.candle;
+
+import haveno.price.util.JsonWriter;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ring buffer of open/high/low/close candles of one currency pair and interval, held in
+ * parallel primitive arrays. The arrays start small and double until they reach the
+ * capacity, so that a pair only holds as many slots as it has candles, e.g. a few days
+ * of daily candles rather than a year's worth. Once full, a tick updates the current
+ * candle, or starts a new one overwriting the oldest, in constant time and without
+ * allocating.
+ *
+ * Intervals without any tick produce no candle. Ticks older than the current candle
+ * are ignored.
+ */
+final class CandleSeries {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long intervalMillis;
+    private final int capacity;
+    private long[] openTimes;
+    private double[] opens;
+    private double[] highs;
+    private double[] lows;
+    private double[] closes;
+    private int head = -1;
+    private int size;
+
+    CandleSeries(CandleInterval interval) {
+        this(interval.getMillis(), interval.getCapacity());
+    }
+
+    CandleSeries(long intervalMillis, int capacity) {
+        int initialCapacity = Math.min(capacity, INITIAL_CAPACITY);
+        this.intervalMillis = intervalMillis;
+        this.capacity = capacity;
+        this.openTimes = new long[initialCapacity];
+        this.opens = new double[initialCapacity];
+        this.highs = new double[initialCapacity];
+        this.lows = new double[initialCapacity];
+        this.closes = new double[initialCapacity];
+    }
+
+    void update(long time, double price) {
+        lock.lock();
+        try {
+            long openTime = time - Math.floorMod(time, intervalMillis);
+            if (size > 0 && openTime == openTimes[head]) {
+                highs[head] = Math.max(highs[head], price);
+                lows[head] = Math.min(lows[head], price);
+                closes[head] = price;
+                return;
+            }
+            if (size > 0 && openTime < openTimes[head]) {
+                return;
+            }
+            if (size == openTimes.length && size < capacity) {
+                grow();
+            }
+            head = (head + 1) % openTimes.length;
+            size = Math.min(size + 1, openTimes.length);
+            openTimes[head] = openTime;
+            opens[head] = price;
+            highs[head] = price;
+            lows[head] = price;
+            closes[head] = price;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The buffer has not wrapped around before it is full, so the candles are in order
+     * at the start of the arrays and stay in place.
+     */
+    private void grow() {
+        int length = Math.min(capacity, 2 * openTimes.length);
+        openTimes = Arrays.copyOf(openTimes, length);
+        opens = Arrays.copyOf(opens, length);
+        highs = Arrays.copyOf(highs, length);
+        lows = Arrays.copyOf(lows, length);
+        closes = Arrays.copyOf(closes, length);
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write the latest candles, oldest first, as a comma separated list of JSON objects.
+     */
+    void write(int limit, JsonWriter json) {
+        lock.lock();
+        try {
+            int n = Math.min(Math.max(limit, 0), size);
+            for (int k = n - 1; k >= 0; k--) {
+                int i = Math.floorMod(head - k, openTimes.length);
+                json.raw(k == n - 1 ? "{" : ",{")
+                        .raw("\"openTime\":").number(openTimes[i])
+                        .raw(",\"open\":").number(opens[i])
+                        .raw(",\"high\":").number(highs[i])
+                        .raw(",\"low\":").number(lows[i])
+                        .raw(",\"close\":").number(closes[i])
+                        .raw('}');
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot.candle;
+
+import haveno.price.spot.ExchangeRate;
+import haveno.price.spot.ExchangeRateService;
+import haveno.price.spot.ExchangeRateSnapshot;
+import haveno.price.util.JsonWriter;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds open/high/low/close candles of every aggregate rate from the snapshots
+ * published by the {@link ExchangeRateService}. Each publish is one tick per pair,
+ * timed by the snapshot's publish time.
+ */
+@Service
+public class CandleService {
+
+    // by base, then counter currency, so that a tick does not build a pair key
+    private final Map<String, Map<String, CandleSeries[]>> seriesByPair = new ConcurrentHashMap<>();
+
+    public CandleService(ExchangeRateService exchangeRateService) {
+        exchangeRateService.addSnapshotListener(this::onPublish);
+    }
+
+    void onPublish(ExchangeRateSnapshot snapshot) {
+        List<ExchangeRate> rates = snapshot.getRates();
+        for (int i = 0; i < rates.size(); i++) {
+            ExchangeRate rate = rates.get(i);
+            CandleSeries[] series = find(rate.getBaseCurrency(), rate.getCounterCurrency());
+            if (series == null) {
+                series = seriesByPair.computeIfAbsent(rate.getBaseCurrency(), b -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(rate.getCounterCurrency(), c -> newSeries());
+            }
+            for (CandleSeries s : series) {
+                s.update(snapshot.getPublishedAt(), rate.getPrice());
+            }
+        }
+    }
+
+    /**
+     * Write the latest candles of a currency pair as a JSON object to the given writer.
+     *
+     * @return false if there are no candles of the pair
+     */
+    public boolean write(String base, String counter, CandleInterval interval, int limit, JsonWriter json) {
+        CandleSeries[] series = find(base, counter);
+        if (series == null) {
+            return false;
+        }
+        json.raw("{\"baseCurrencyCode\":").string(base)
+                .raw(",\"counterCurrencyCode\":").string(counter)
+                .raw(",\"interval\":").string(interval.getLabel())
+                .raw(",\"data\":[");
+        series[interval.ordinal()].write(limit, json);
+        json.raw("]}");
+        return true;
+    }
+
+    private static CandleSeries[] newSeries() {
+        CandleInterval[] intervals = CandleInterval.values();
+        CandleSeries[] series = new CandleSeries[intervals.length];
+        for (CandleInterval interval : intervals) {
+            series[interval.ordinal()] = new CandleSeries(interval);
+        }
+        return series;
+    }
+
+    private CandleSeries[] find(String base, String counter) {
+        Map<String, CandleSeries[]> byCounter = seriesByPair.get(base);
+        return byCounter == null ? null : byCounter.get(counter);
+    }
+}
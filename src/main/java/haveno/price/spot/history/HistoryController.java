@@ -0,0 +1,67 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot.history;
+
+import haveno.price.PriceController;
+import haveno.price.util.JsonWriter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+class HistoryController extends PriceController {
+
+    private final HistoryStore historyStore;
+    private final int maxResults;
+
+    public HistoryController(Environment env, HistoryStore historyStore) {
+        this.historyStore = historyStore;
+        this.maxResults = env.getProperty("haveno.price.history.maxResults", Integer.class, 10_000);
+    }
+
+    /**
+     * @param from     inclusive start of the range, in millis since epoch
+     * @param to       inclusive end of the range, in millis since epoch
+     * @param provider name of a provider to return its own prices instead of the
+     *                 aggregate prices
+     */
+    @GetMapping(path = "/history/{base}/{counter}")
+    public ResponseEntity<byte[]> getHistory(@PathVariable String base,
+                                             @PathVariable String counter,
+                                             @RequestParam(defaultValue = "0") long from,
+                                             @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to,
+                                             @RequestParam(required = false) String provider,
+                                             @RequestParam(required = false) Integer limit) {
+        if (!historyStore.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        int max = limit == null ? maxResults : Math.max(0, Math.min(limit, maxResults));
+        JsonWriter json = new JsonWriter(4096);
+        historyStore.query(base.toUpperCase(), counter.toUpperCase(), from, to, provider, max, json);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json.toByteArray());
+    }
+}
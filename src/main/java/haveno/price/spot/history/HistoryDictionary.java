@@ -0,0 +1,87 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot.history;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent mapping of currency pairs and provider names to the small integer ids
+ * stored in {@link HistorySegment} records. Ids are assigned in order of first use
+ * and never change; new entries are appended to the dictionary file.
+ */
+final class HistoryDictionary {
+
+    private final Path file;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[0];
+
+    HistoryDictionary(Path file) throws IOException {
+        this.file = file;
+        if (Files.exists(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                while (in.available() > 0) {
+                    add(in.readUTF());
+                }
+            } catch (EOFException e) {
+                // entry cut off by a crash, it is re-added on next use
+            }
+        }
+    }
+
+    /**
+     * @return id of the given name, or -1 if it was never recorded
+     */
+    int find(String name) {
+        return ids.getOrDefault(name, -1);
+    }
+
+    /**
+     * @return id of the given name, assigning and persisting a new one if needed
+     */
+    synchronized int getOrAdd(String name) throws IOException {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            out.writeUTF(name);
+        }
+        return add(name);
+    }
+
+    String name(int id) {
+        String[] current = names;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    private synchronized int add(String name) {
+        int id = names.length;
+        String[] grown = Arrays.copyOf(names, id + 1);
+        grown[id] = name;
+        names = grown;
+        ids.put(name, id);
+        return id;
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot.history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memory-mapped, append-only file of fixed-width price records. Records are appended
+ * in ascending order of their recording time, which doubles as the time index: the
+ * first record of a time range is found by binary search over the mapped file.
+ *
+ * Each record links to the next record of the same pair and kind, so that a query
+ * reads the records of its pair only. The chains are entered through a
+ * {@link Chain} per pair and kind, held in memory with every
+ * {@link #CHECKPOINT_INTERVAL}th record of the chain, and rebuilt by a single scan
+ * when an existing segment is opened.
+ *
+ * <pre>
+ * offset  size  field
+ *      0     8  recordedAt     time in millis at which the record was appended
+ *      8     8  rateTimestamp  timestamp of the rate itself
+ *     16     8  price
+ *     24     4  pairId         dictionary id of "BASE/COUNTER"
+ *     28     4  providerId     dictionary id of the provider name
+ *     32     2  kind           {@link #KIND_AGGREGATE} or {@link #KIND_PROVIDER}
+ *     34     2  reserved
+ *     36     4  next           index + 1 of the next record of the same pair and
+ *                              kind, 0 if none
+ * </pre>
+ *
+ * A single thread appends; any number of threads may read concurrently up to the
+ * published record count.
+ */
+final class HistorySegment implements Closeable {
+
+    static final int RECORD_SIZE = 40;
+    static final short KIND_AGGREGATE = 0;
+    static final short KIND_PROVIDER = 1;
+    static final int CHECKPOINT_INTERVAL = 64;
+    // files of the former 32 byte records without chains end in .dat and are ignored
+    private static final String SUFFIX = ".rec";
+
+    private final Path file;
+    private final long startedAt;
+    private final int capacity;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    // by chain key, see key(int, short)
+    private final Map<Integer, Chain> chains = new ConcurrentHashMap<>();
+    private volatile int count;
+
+    private HistorySegment(Path file, long startedAt, int capacity) throws IOException {
+        this.file = file;
+        this.startedAt = startedAt;
+        this.capacity = capacity;
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+        this.count = findCount();
+        for (int i = 0; i < count; i++) {
+            int offset = i * RECORD_SIZE;
+            Chain chain = chain(buffer.getInt(offset + 24), buffer.getShort(offset + 32));
+            if (chain.last >= 0 && nextIndex(chain.last) != i) {
+                // a crash between completing a record and linking it
+                buffer.putInt(chain.last * RECORD_SIZE + 36, i + 1);
+            }
+            chain.add(i);
+        }
+    }
+
+    static HistorySegment create(Path dir, long startedAt, int capacity) throws IOException {
+        return new HistorySegment(dir.resolve(fileName(startedAt)), startedAt, capacity);
+    }
+
+    /**
+     * Map an existing segment, keeping the capacity it was created with.
+     */
+    static HistorySegment open(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        long startedAt = Long.parseLong(name.substring("segment-".length(), name.length() - SUFFIX.length()));
+        int capacity = (int) (Files.size(file) / RECORD_SIZE);
+        return new HistorySegment(file, startedAt, capacity);
+    }
+
+    static boolean isSegmentFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith("segment-") && name.endsWith(SUFFIX);
+    }
+
+    private static String fileName(long startedAt) {
+        return String.format("segment-%015d" + SUFFIX, startedAt);
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    long getStartedAt() {
+        return startedAt;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    boolean isFull() {
+        return count >= capacity;
+    }
+
+    /**
+     * @return time at which the last record was appended, or 0 if the segment is empty
+     */
+    long getLastRecordedAt() {
+        int n = count;
+        return n == 0 ? 0 : recordedAt(n - 1);
+    }
+
+    void append(long recordedAt, long rateTimestamp, double price, int pairId, int providerId, short kind) {
+        int index = count;
+        int offset = index * RECORD_SIZE;
+        buffer.putLong(offset + 8, rateTimestamp);
+        buffer.putDouble(offset + 16, price);
+        buffer.putInt(offset + 24, pairId);
+        buffer.putInt(offset + 28, providerId);
+        buffer.putShort(offset + 32, kind);
+        // left over by a record cut off by a crash
+        buffer.putInt(offset + 36, 0);
+        // a non-zero recordedAt marks the record as complete, see findCount()
+        buffer.putLong(offset, recordedAt);
+        Chain chain = chain(pairId, kind);
+        int last = chain.last;
+        if (last >= 0) {
+            // readers follow the link only up to the published count
+            buffer.putInt(last * RECORD_SIZE + 36, index + 1);
+        }
+        count = index + 1;
+        chain.add(index);
+    }
+
+    /**
+     * @return index of the first record of the pair and kind appended at or after the
+     * given time, or -1 if there is none
+     */
+    int firstIndexAtOrAfter(int pairId, short kind, long from) {
+        Chain chain = chains.get(key(pairId, kind));
+        int size = chain == null ? 0 : chain.size;
+        if (size == 0) {
+            return -1;
+        }
+        // start at the last checkpoint before the time, then follow the chain
+        int[] checkpoints = chain.checkpoints;
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (recordedAt(checkpoints[mid]) < from) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        int n = count;
+        int index = checkpoints[low];
+        while (index >= 0 && index < n && recordedAt(index) < from) {
+            index = nextIndex(index);
+        }
+        return index < n ? index : -1;
+    }
+
+    /**
+     * @return index of the next record of the same pair and kind, or -1 if there is
+     * none. May be beyond a count read before.
+     */
+    int nextIndex(int index) {
+        return buffer.getInt(index * RECORD_SIZE + 36) - 1;
+    }
+
+    /**
+     * @return index of the first record appended at or after the given time
+     */
+    int firstIndexAtOrAfter(long from) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (recordedAt(mid) < from) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private Chain chain(int pairId, short kind) {
+        return chains.computeIfAbsent(key(pairId, kind), k -> new Chain());
+    }
+
+    private static int key(int pairId, short kind) {
+        return pairId << 1 | kind;
+    }
+
+    /**
+     * @return read-only view of the mapped records, shared without copying
+     */
+    ByteBuffer records() {
+        return buffer.asReadOnlyBuffer();
+    }
+
+    long recordedAt(int index) {
+        return buffer.getLong(index * RECORD_SIZE);
+    }
+
+    void flush() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int findCount() {
+        // records are never zero-timestamped, so the first zero marks the end
+        int low = 0;
+        int high = capacity;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getLong(mid * RECORD_SIZE) != 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Entry points into the records of one pair and kind: the index of every
+     * {@link #CHECKPOINT_INTERVAL}th record, starting with the first, and of the last
+     * record. Written by the appending thread only.
+     */
+    private static final class Chain {
+        private volatile int[] checkpoints = new int[4];
+        // published after the checkpoint it counts, read before the checkpoints
+        private volatile int size;
+        private int records;
+        private int last = -1;
+
+        private void add(int index) {
+            if (records++ % CHECKPOINT_INTERVAL == 0) {
+                int[] current = checkpoints;
+                if (size == current.length) {
+                    current = Arrays.copyOf(current, current.length * 2);
+                    checkpoints = current;
+                }
+                current[size] = index;
+                size = size + 1;
+            }
+            last = index;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot.history;
+
+import haveno.price.spot.ExchangeRate;
+import haveno.price.spot.ExchangeRateService;
+import haveno.price.spot.ExchangeRateSnapshot;
+import haveno.price.util.JsonWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Embedded, append-only history of every aggregate and per-provider price published
+ * by the {@link ExchangeRateService}.
+ *
+ * Prices are appended as fixed-width records to memory-mapped {@link HistorySegment}s.
+ * A new segment is started once the current one is full or a day old, and segments
+ * whose records are all older than the retention period are deleted. A provider's
+ * rates are recorded only when the provider delivered a new set, and an aggregate
+ * rate only when it changed, so an idle market does not grow the history.
+ */
+@Slf4j
+@Component
+public class HistoryStore {
+
+    private final Path dir;
+    private final int segmentCapacity;
+    private final long segmentMillis;
+    private final long retentionMillis;
+    private final List<HistorySegment> segments = new CopyOnWriteArrayList<>();
+    private final ExecutorService writer;
+    private HistoryDictionary dictionary;
+
+    // accessed only by the writer thread
+    private final Map<String, Set<ExchangeRate>> lastProviderRates = new HashMap<>();
+    private final Map<Integer, ExchangeRate> lastAggregateRates = new HashMap<>();
+    private long lastRecordedAt;
+
+    public HistoryStore(Environment env, ExchangeRateService exchangeRateService) {
+        this.dir = Paths.get(env.getProperty("haveno.price.dataDir",
+                System.getProperty("user.home") + "/.haveno-pricenode"), "history");
+        this.segmentCapacity = env.getProperty("haveno.price.history.segmentRecords", Integer.class, 1 << 20);
+        this.segmentMillis = TimeUnit.HOURS.toMillis(env.getProperty("haveno.price.history.segmentHours", Long.class, 24L));
+        this.retentionMillis = TimeUnit.DAYS.toMillis(env.getProperty("haveno.price.history.retentionDays", Long.class, 30L));
+        if (!env.getProperty("haveno.price.history.enabled", Boolean.class, true) || !open()) {
+            this.writer = null;
+            return;
+        }
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "history-store");
+            thread.setDaemon(true);
+            return thread;
+        });
+        exchangeRateService.addSnapshotListener(snapshot -> writer.execute(() -> record(snapshot)));
+    }
+
+    public boolean isEnabled() {
+        return writer != null;
+    }
+
+    private boolean open() {
+        try {
+            Files.createDirectories(dir);
+            dictionary = new HistoryDictionary(dir.resolve("dictionary.bin"));
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : files.filter(HistorySegment::isSegmentFile).sorted().toList()) {
+                    segments.add(HistorySegment.open(file));
+                }
+            }
+            if (!segments.isEmpty()) {
+                lastRecordedAt = segments.get(segments.size() - 1).getLastRecordedAt();
+            }
+            log.info("Opened price history in {} with {} segments", dir, segments.size());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not open price history in {}, history is disabled: {}", dir, e.toString());
+            return false;
+        }
+    }
+
+    void record(ExchangeRateSnapshot snapshot) {
+        try {
+            // keep recording time monotonic across clock adjustments, queries rely on it
+            long now = Math.max(System.currentTimeMillis(), lastRecordedAt);
+            for (Map.Entry<String, Set<ExchangeRate>> entry : snapshot.getProviderRates().entrySet()) {
+                if (lastProviderRates.put(entry.getKey(), entry.getValue()) == entry.getValue()) {
+                    continue;
+                }
+                int providerId = dictionary.getOrAdd(entry.getKey());
+                for (ExchangeRate rate : entry.getValue()) {
+                    append(now, rate, providerId, HistorySegment.KIND_PROVIDER);
+                }
+            }
+            for (ExchangeRate rate : snapshot.getRates()) {
+                int pairId = dictionary.getOrAdd(pair(rate.getBaseCurrency(), rate.getCounterCurrency()));
+                ExchangeRate last = lastAggregateRates.put(pairId, rate);
+                // not by timestamp, which the service sets to the build time of every
+                // aggregate, so that an unchanged market does not grow the history
+                if (last == null || last.getPrice() != rate.getPrice() || !Objects.equals(last.getProvider(), rate.getProvider())) {
+                    append(now, rate, dictionary.getOrAdd(rate.getProvider()), HistorySegment.KIND_AGGREGATE);
+                }
+            }
+            lastRecordedAt = now;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not record snapshot published at {}: {}", snapshot.getPublishedAt(), e.toString());
+        }
+    }
+
+    private void append(long now, ExchangeRate rate, int providerId, short kind) throws IOException {
+        int pairId = dictionary.getOrAdd(pair(rate.getBaseCurrency(), rate.getCounterCurrency()));
+        activeSegment(now).append(now, rate.getTimestamp(), rate.getPrice(), pairId, providerId, kind);
+    }
+
+    private HistorySegment activeSegment(long now) throws IOException {
+        HistorySegment active = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (active != null && !active.isFull() && now - active.getStartedAt() < segmentMillis) {
+            return active;
+        }
+        if (active != null) {
+            active.flush();
+        }
+        long startedAt = active == null ? now : Math.max(now, active.getStartedAt() + 1);
+        HistorySegment segment = HistorySegment.create(dir, startedAt, segmentCapacity);
+        segments.add(segment);
+        removeExpiredSegments(now);
+        return segment;
+    }
+
+    private void removeExpiredSegments(long now) throws IOException {
+        // a segment's records all predate the start of the next segment
+        for (int i = 0; i < segments.size() - 1; i++) {
+            HistorySegment segment = segments.get(i);
+            if (segments.get(i + 1).getStartedAt() > now - retentionMillis) {
+                break;
+            }
+            segments.remove(segment);
+            segment.close();
+            Files.deleteIfExists(segment.getFile());
+            i--;
+            log.info("Deleted expired price history segment {}", segment.getFile());
+        }
+    }
+
+    /**
+     * Write the recorded prices of a currency pair as a JSON object to the given writer,
+     * reading the records directly from the mapped segments.
+     *
+     * @param from     inclusive lower bound of the recording time in millis
+     * @param to       inclusive upper bound of the recording time in millis
+     * @param provider name of the provider whose prices to return, or null for the
+     *                 aggregate prices
+     * @param limit    maximum number of prices to return, starting with the oldest
+     */
+    public void query(String base, String counter, long from, long to, String provider, int limit, JsonWriter json) {
+        json.raw("{\"baseCurrencyCode\":").string(base)
+                .raw(",\"counterCurrencyCode\":").string(counter)
+                .raw(",\"provider\":").string(provider)
+                .raw(",\"data\":[");
+        int pairId = dictionary == null ? -1 : dictionary.find(pair(base, counter));
+        int providerId = provider == null ? -1 : dictionary == null ? -1 : dictionary.find(provider);
+        if (pairId >= 0 && (provider == null || providerId >= 0)) {
+            short kind = provider == null ? HistorySegment.KIND_AGGREGATE : HistorySegment.KIND_PROVIDER;
+            writeRecords(pairId, providerId, kind, from, to, limit, json);
+        }
+        json.raw("]}");
+    }
+
+    private void writeRecords(int pairId, int providerId, short kind, long from, long to, int limit, JsonWriter json) {
+        List<HistorySegment> current = new ArrayList<>(segments);
+        int written = 0;
+        for (int s = 0; s < current.size() && written < limit; s++) {
+            HistorySegment segment = current.get(s);
+            if (segment.getStartedAt() > to) {
+                break;
+            }
+            if (s + 1 < current.size() && current.get(s + 1).getStartedAt() < from) {
+                continue;
+            }
+            int count = segment.getCount();
+            ByteBuffer records = segment.records();
+            // follows the chain of the pair and kind, skipping the records of other pairs
+            for (int i = segment.firstIndexAtOrAfter(pairId, kind, from);
+                 i >= 0 && i < count && written < limit; i = segment.nextIndex(i)) {
+                int offset = i * HistorySegment.RECORD_SIZE;
+                long recordedAt = records.getLong(offset);
+                if (recordedAt > to) {
+                    return;
+                }
+                int recordProviderId = records.getInt(offset + 28);
+                if (providerId >= 0 && recordProviderId != providerId) {
+                    continue;
+                }
+                json.raw(written++ == 0 ? "{" : ",{")
+                        .raw("\"recordedAt\":").number(recordedAt)
+                        .raw(",\"timestampSec\":").number(records.getLong(offset + 8))
+                        .raw(",\"price\":").number(records.getDouble(offset + 16))
+                        .raw(",\"provider\":").string(dictionary.name(recordProviderId))
+                        .raw('}');
+            }
+        }
+    }
+
+    private static String pair(String base, String counter) {
+        return base + "/" + counter;
+    }
+}
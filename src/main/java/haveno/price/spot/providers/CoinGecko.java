@@ -23,16 +23,13 @@ import haveno.price.util.coingecko.CoinGeckoMarketData;
 
 import haveno.price.util.coingecko.CoinGeckoTicker;
 import org.springframework.core.env.Environment;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
 
 import java.time.Duration;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -86,11 +83,6 @@ class CoinGecko extends ExchangeRateProvider {
     }
 
     private CoinGeckoMarketData getMarketData() {
-        return WebClient.create().get()
-                .uri(CoinGecko.GET_EXCHANGE_RATES_URL)
-                .accept(MediaType.APPLICATION_JSON)
-                .retrieve()
-                .bodyToMono(CoinGeckoMarketData.class)
-                .block(Duration.of(30, ChronoUnit.SECONDS));
+        return fetchJson(CoinGecko.GET_EXCHANGE_RATES_URL, CoinGeckoMarketData.class);
     }
 }
@@ -20,11 +20,9 @@ package haveno.price.spot.providers;
 import haveno.price.spot.ExchangeRate;
 import haveno.price.spot.ExchangeRateProvider;
 import haveno.price.util.cryptoya.CryptoYaTicker;
-import org.springframework.core.ParameterizedTypeReference;
+import com.fasterxml.jackson.core.type.TypeReference;
 import org.springframework.core.env.Environment;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
 
 import java.time.Duration;
 import java.time.Instant;
@@ -68,8 +66,6 @@ public class CryptoYa extends ExchangeRateProvider implements BlueRateProvider {
 
     private static final String CRYPTO_YA_BTC_ARS_API_URL = "https://criptoya.com/api/btc/ars/0.1";
 
-    private final WebClient webClient = WebClient.create();
-
     public CryptoYa(Environment env) {
         super(env, PROVIDER_NAME, "cryptoya", Duration.ofMinutes(1));
     }
@@ -94,13 +90,8 @@ public class CryptoYa extends ExchangeRateProvider implements BlueRateProvider {
     }
 
     private Map<String, CryptoYaTicker> fetchArsBlueMarketData() {
-        return webClient.get()
-                .uri(CRYPTO_YA_BTC_ARS_API_URL)
-                .accept(MediaType.APPLICATION_JSON)
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, CryptoYaTicker>>() {
-                })
-                .block(Duration.of(30, ChronoUnit.SECONDS));
+        return fetchJson(CRYPTO_YA_BTC_ARS_API_URL, new TypeReference<Map<String, CryptoYaTicker>>() {
+        });
     }
 
     private Function<Map.Entry<String, CryptoYaTicker>, Optional<ExchangeRate>> cryptoYaEntryToExchangeRate(
@@ -37,11 +37,9 @@ package haveno.price.spot.providers;
 import haveno.price.spot.ExchangeRate;
 import haveno.price.spot.ExchangeRateProvider;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
 import org.springframework.core.env.Environment;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
-import reactor.core.publisher.Flux;
 
 import java.math.BigDecimal;
 import java.time.Duration;
@@ -69,17 +67,13 @@ class Poloniex extends ExchangeRateProvider {
 
     @Override
     public Set<ExchangeRate> doGet() {
-        Flux<PoloniexTicker> poloniexTickerFlux = WebClient.create()
-                .get()
-                .uri(POLONIEX_URL)
-                .accept(MediaType.APPLICATION_JSON)
-                .retrieve()
-                .bodyToFlux(PoloniexTicker.class);
+        List<PoloniexTicker> poloniexTickers = fetchJson(POLONIEX_URL, new TypeReference<List<PoloniexTicker>>() {
+        });
 
-        return poloniexTickerFlux.filter(PoloniexTicker::isSupportedCurrency)
+        return poloniexTickers.stream()
+                .filter(PoloniexTicker::isSupportedCurrency)
                 .map(PoloniexTicker::toExchangeRate)
-                .collect(Collectors.toSet())
-                .block();
+                .collect(Collectors.toSet());
     }
 
     @JsonIgnoreProperties(ignoreUnknown = true)
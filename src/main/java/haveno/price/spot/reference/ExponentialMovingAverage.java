@@ -0,0 +1,58 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot.reference;
+
+/**
+ * Continuous-time exponential moving average of a price. Since ticks arrive at
+ * irregular intervals, the previous price is weighted by how long it was current:
+ * the average moves towards it by a factor of {@code 1 - exp(-elapsed / period)}.
+ */
+final class ExponentialMovingAverage {
+
+    private final double periodMillis;
+    private long time;
+    private double price = Double.NaN;
+    private double average = Double.NaN;
+
+    ExponentialMovingAverage(long periodMillis) {
+        this.periodMillis = periodMillis;
+    }
+
+    void update(long time, double price) {
+        if (Double.isNaN(average)) {
+            this.average = price;
+        } else if (time < this.time) {
+            return;
+        } else {
+            this.average = decay(time);
+        }
+        this.time = time;
+        this.price = price;
+    }
+
+    /**
+     * @return the average as of now, or NaN if there was no tick yet
+     */
+    double get(long now) {
+        return Double.isNaN(average) || now <= time ? average : decay(now);
+    }
+
+    private double decay(long now) {
+        return price + (average - price) * Math.exp(-(now - time) / periodMillis);
+    }
+}
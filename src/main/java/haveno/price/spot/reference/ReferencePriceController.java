@@ -0,0 +1,58 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot.reference;
+
+import haveno.price.PriceController;
+import haveno.price.util.JsonWriter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+class ReferencePriceController extends PriceController {
+
+    private final ReferencePriceService referencePriceService;
+
+    public ReferencePriceController(ReferencePriceService referencePriceService) {
+        this.referencePriceService = referencePriceService;
+    }
+
+    @GetMapping(path = "/getReferencePrices")
+    public ResponseEntity<byte[]> getReferencePrices() {
+        JsonWriter json = new JsonWriter(16384);
+        referencePriceService.writeAll(System.currentTimeMillis(), json);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json.toByteArray());
+    }
+
+    @GetMapping(path = "/reference/{base}/{counter}")
+    public ResponseEntity<byte[]> getReferencePrice(@PathVariable String base, @PathVariable String counter) {
+        JsonWriter json = new JsonWriter(256);
+        if (!referencePriceService.write(base.toUpperCase(), counter.toUpperCase(), System.currentTimeMillis(), json)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json.toByteArray());
+    }
+}
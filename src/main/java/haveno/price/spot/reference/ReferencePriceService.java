@@ -0,0 +1,148 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot.reference;
+
+import haveno.price.spot.ExchangeRate;
+import haveno.price.spot.ExchangeRateService;
+import haveno.price.spot.ExchangeRateSnapshot;
+import haveno.price.util.JsonWriter;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Maintains smoothed reference prices of every aggregate rate, a time-weighted
+ * average (TWAP) and an exponential moving average (EMA), updated in constant time
+ * from each snapshot published by the {@link ExchangeRateService}. A single bad
+ * refresh moves them only in proportion to how long it stays current.
+ */
+@Service
+public class ReferencePriceService {
+
+    private static final int TWAP_CAPACITY = 4096;
+
+    private final long twapWindowMillis;
+    private final long emaPeriodMillis;
+    // by base, then counter currency
+    private final Map<String, Map<String, ReferencePrice>> pricesByPair = new ConcurrentHashMap<>();
+    private volatile ExchangeRateSnapshot latest;
+
+    public ReferencePriceService(Environment env, ExchangeRateService exchangeRateService) {
+        this.twapWindowMillis = TimeUnit.MINUTES.toMillis(env.getProperty("haveno.price.reference.twapMinutes", Long.class, 60L));
+        this.emaPeriodMillis = TimeUnit.MINUTES.toMillis(env.getProperty("haveno.price.reference.emaMinutes", Long.class, 15L));
+        exchangeRateService.addSnapshotListener(this::onPublish);
+    }
+
+    void onPublish(ExchangeRateSnapshot snapshot) {
+        List<ExchangeRate> rates = snapshot.getRates();
+        for (int i = 0; i < rates.size(); i++) {
+            ExchangeRate rate = rates.get(i);
+            ReferencePrice price = find(rate.getBaseCurrency(), rate.getCounterCurrency());
+            if (price == null) {
+                price = pricesByPair.computeIfAbsent(rate.getBaseCurrency(), b -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(rate.getCounterCurrency(), c -> new ReferencePrice());
+            }
+            price.update(snapshot.getPublishedAt(), rate.getPrice());
+        }
+        latest = snapshot;
+    }
+
+    /**
+     * Write the reference prices of all pairs of the latest snapshot, in its order, as
+     * a JSON object to the given writer.
+     */
+    public void writeAll(long now, JsonWriter json) {
+        json.raw("{\"twapWindowSec\":").number(twapWindowMillis / 1000)
+                .raw(",\"emaPeriodSec\":").number(emaPeriodMillis / 1000)
+                .raw(",\"data\":[");
+        ExchangeRateSnapshot snapshot = latest;
+        if (snapshot != null) {
+            boolean firstPair = true;
+            for (ExchangeRate rate : snapshot.getRates()) {
+                ReferencePrice price = find(rate.getBaseCurrency(), rate.getCounterCurrency());
+                if (price != null) {
+                    json.raw(firstPair ? "" : ",");
+                    price.write(rate, now, json);
+                    firstPair = false;
+                }
+            }
+        }
+        json.raw("]}");
+    }
+
+    /**
+     * Write the reference prices of one pair as a JSON object to the given writer.
+     *
+     * @return false if there are no prices of the pair
+     */
+    public boolean write(String base, String counter, long now, JsonWriter json) {
+        ExchangeRateSnapshot snapshot = latest;
+        ReferencePrice price = find(base, counter);
+        if (snapshot == null || price == null) {
+            return false;
+        }
+        for (ExchangeRate rate : snapshot.getRates()) {
+            if (rate.getBaseCurrency().equals(base) && rate.getCounterCurrency().equals(counter)) {
+                price.write(rate, now, json);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ReferencePrice find(String base, String counter) {
+        Map<String, ReferencePrice> byCounter = pricesByPair.get(base);
+        return byCounter == null ? null : byCounter.get(counter);
+    }
+
+    private class ReferencePrice {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final TimeWeightedAverage twap = new TimeWeightedAverage(twapWindowMillis, TWAP_CAPACITY);
+        private final ExponentialMovingAverage ema = new ExponentialMovingAverage(emaPeriodMillis);
+
+        void update(long time, double price) {
+            lock.lock();
+            try {
+                twap.update(time, price);
+                ema.update(time, price);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void write(ExchangeRate rate, long now, JsonWriter json) {
+            lock.lock();
+            try {
+                json.raw("{\"baseCurrencyCode\":").string(rate.getBaseCurrency())
+                        .raw(",\"counterCurrencyCode\":").string(rate.getCounterCurrency())
+                        .raw(",\"price\":").number(rate.getPrice())
+                        .raw(",\"twap\":").number(twap.get(now))
+                        .raw(",\"ema\":").number(ema.get(now))
+                        .raw(",\"timestampSec\":").number(rate.getTimestamp())
+                        .raw('}');
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
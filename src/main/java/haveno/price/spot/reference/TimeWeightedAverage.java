@@ -0,0 +1,109 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot.reference;
+
+/**
+ * Time-weighted average of a price over a sliding window. Each price counts for as long
+ * as it was current, i.e. until the next tick or until now.
+ *
+ * The ticks within the window are kept in a primitive ring buffer together with the
+ * running sum of price times duration of all closed segments, so that an update or a
+ * query costs amortized constant time: ticks leaving the window are subtracted once
+ * instead of rescanning the window. Ticks repeating the current price extend the
+ * current segment and are not stored. If the buffer is full the oldest tick is dropped
+ * early, shortening the window.
+ */
+final class TimeWeightedAverage {
+
+    private final long windowMillis;
+    private final long[] times;
+    private final double[] prices;
+    private int first;
+    private int size;
+    // sum of price * duration over the closed segments between buffered ticks
+    private double closedSum;
+
+    TimeWeightedAverage(long windowMillis, int capacity) {
+        this.windowMillis = windowMillis;
+        this.times = new long[capacity];
+        this.prices = new double[capacity];
+    }
+
+    void update(long time, double price) {
+        if (size > 0) {
+            int last = index(size - 1);
+            if (time < times[last] || prices[last] == price) {
+                return;
+            }
+            if (size == times.length) {
+                evictFirst();
+                last = index(size - 1);
+            }
+            closedSum += prices[last] * (time - times[last]);
+        }
+        int next = index(size);
+        times[next] = time;
+        prices[next] = price;
+        size++;
+        evictBefore(time - windowMillis);
+    }
+
+    /**
+     * @return the average over the window ending now, or NaN if there was no tick yet
+     */
+    double get(long now) {
+        if (size == 0) {
+            return Double.NaN;
+        }
+        long windowStart = now - windowMillis;
+        evictBefore(windowStart);
+        int last = index(size - 1);
+        long start = Math.max(windowStart, times[first]);
+        if (now <= start) {
+            return prices[last];
+        }
+        double sum = closedSum + prices[last] * (now - times[last]);
+        if (times[first] < windowStart) {
+            // only the part of the first segment within the window counts
+            sum -= prices[first] * (windowStart - times[first]);
+        }
+        return sum / (now - start);
+    }
+
+    private void evictBefore(long windowStart) {
+        // a tick leaves the window once the next tick is also at or before the start
+        while (size > 1 && times[index(1)] <= windowStart) {
+            evictFirst();
+        }
+    }
+
+    private void evictFirst() {
+        int second = index(1);
+        closedSum -= prices[first] * (times[second] - times[first]);
+        first = second;
+        size--;
+        if (size == 1) {
+            // no closed segment left, drop any accumulated rounding error
+            closedSum = 0;
+        }
+    }
+
+    private int index(int offset) {
+        return (first + offset) % times.length;
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot.sparkline;
+
+import haveno.price.util.JsonWriter;
+
+import java.util.Arrays;
+
+/**
+ * Append-only, compressed block of (time, price) points, encoded as described in
+ * "Gorilla: A Fast, Scalable, In-Memory Time Series Database" (Pelkonen et al., 2015).
+ *
+ * Times, in seconds, are stored as the delta of their delta to the previous point,
+ * which is 0 and takes a single bit for points sampled at a fixed interval. Prices are
+ * stored as the XOR with the previous price, which is 0 and takes a single bit for an
+ * unchanged price, and otherwise only its meaningful bits are stored.
+ *
+ * Not thread-safe.
+ */
+final class GorillaBlock {
+
+    private long[] words = new long[16];
+    private int bitCount;
+    private int count;
+
+    private long firstTime;
+    private long lastTime;
+    private long lastDelta;
+    private long lastValue;
+    private int lastLeading = -1;
+    private int lastTrailing;
+
+    int getCount() {
+        return count;
+    }
+
+    long getFirstTime() {
+        return firstTime;
+    }
+
+    long getLastTime() {
+        return lastTime;
+    }
+
+    /**
+     * @param time  in seconds, not before the time of the last point
+     */
+    void append(long time, double price) {
+        long value = Double.doubleToRawLongBits(price);
+        if (count == 0) {
+            firstTime = time;
+            writeBits(value, 64);
+        } else {
+            long delta = time - lastTime;
+            appendDeltaOfDelta(delta - lastDelta);
+            appendXor(value ^ lastValue);
+            lastDelta = delta;
+        }
+        lastTime = time;
+        lastValue = value;
+        count++;
+    }
+
+    private void appendDeltaOfDelta(long deltaOfDelta) {
+        if (deltaOfDelta == 0) {
+            writeBits(0b0, 1);
+        } else if (deltaOfDelta >= -64 && deltaOfDelta < 64) {
+            writeBits(0b10, 2);
+            writeBits(deltaOfDelta, 7);
+        } else if (deltaOfDelta >= -256 && deltaOfDelta < 256) {
+            writeBits(0b110, 3);
+            writeBits(deltaOfDelta, 9);
+        } else if (deltaOfDelta >= -2048 && deltaOfDelta < 2048) {
+            writeBits(0b1110, 4);
+            writeBits(deltaOfDelta, 12);
+        } else {
+            writeBits(0b1111, 4);
+            writeBits(deltaOfDelta, 32);
+        }
+    }
+
+    private void appendXor(long xor) {
+        if (xor == 0) {
+            writeBits(0b0, 1);
+            return;
+        }
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (lastLeading >= 0 && leading >= lastLeading && trailing >= lastTrailing) {
+            // meaningful bits fit into the window of the previous value
+            writeBits(0b10, 2);
+            writeBits(xor >>> lastTrailing, 64 - lastLeading - lastTrailing);
+        } else {
+            int length = 64 - leading - trailing;
+            writeBits(0b11, 2);
+            writeBits(leading, 5);
+            writeBits(length - 1, 6);
+            writeBits(xor >>> trailing, length);
+            lastLeading = leading;
+            lastTrailing = trailing;
+        }
+    }
+
+    /**
+     * Release the unused capacity once no more points are appended.
+     */
+    void trim() {
+        words = Arrays.copyOf(words, (bitCount + 63) >>> 6);
+    }
+
+    /**
+     * @return approximate heap size of this block in bytes
+     */
+    long sizeInBytes() {
+        // object header and fields, plus the array header and words
+        return 64 + 16 + (long) words.length * 8;
+    }
+
+    /**
+     * Decode the points from the given time on, writing each as a JSON array of the
+     * time in millis and the price, comma separated.
+     *
+     * @param first whether the first point written is the first of the response
+     * @return the number of points written
+     */
+    int write(long fromTime, boolean first, JsonWriter json) {
+        Reader reader = new Reader();
+        int written = 0;
+        long time = 0;
+        long delta = 0;
+        long value = 0;
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0) {
+                time = firstTime;
+                value = reader.read(64);
+            } else {
+                delta += reader.readDeltaOfDelta();
+                time += delta;
+                if (reader.read(1) != 0) {
+                    if (reader.read(1) != 0) {
+                        leading = (int) reader.read(5);
+                        int length = (int) reader.read(6) + 1;
+                        trailing = 64 - leading - length;
+                    }
+                    value ^= reader.read(64 - leading - trailing) << trailing;
+                }
+            }
+            if (time >= fromTime) {
+                json.raw(first && written == 0 ? "[" : ",[")
+                        .number(time * 1000)
+                        .raw(',')
+                        .number(Double.longBitsToDouble(value))
+                        .raw(']');
+                written++;
+            }
+        }
+        return written;
+    }
+
+    private void writeBits(long value, int bits) {
+        if (bits == 0) {
+            return;
+        }
+        if (bitCount + bits > (long) words.length * 64) {
+            words = Arrays.copyOf(words, Math.max(16, words.length * 2));
+        }
+        value &= bits == 64 ? -1L : (1L << bits) - 1;
+        int index = bitCount >>> 6;
+        int offset = bitCount & 63;
+        int free = 64 - offset;
+        if (bits <= free) {
+            words[index] |= value << (free - bits);
+        } else {
+            words[index] |= value >>> (bits - free);
+            words[index + 1] |= value << (64 - (bits - free));
+        }
+        bitCount += bits;
+    }
+
+    private final class Reader {
+        private int position;
+
+        long read(int bits) {
+            if (bits == 0) {
+                return 0;
+            }
+            int index = position >>> 6;
+            int offset = position & 63;
+            int available = 64 - offset;
+            long value;
+            if (bits <= available) {
+                value = words[index] >>> (available - bits);
+            } else {
+                value = words[index] << (bits - available) | words[index + 1] >>> (64 - (bits - available));
+            }
+            position += bits;
+            return bits == 64 ? value : value & (1L << bits) - 1;
+        }
+
+        long readDeltaOfDelta() {
+            if (read(1) == 0) {
+                return 0;
+            }
+            if (read(1) == 0) {
+                return signed(read(7), 7);
+            }
+            if (read(1) == 0) {
+                return signed(read(9), 9);
+            }
+            if (read(1) == 0) {
+                return signed(read(12), 12);
+            }
+            return signed(read(32), 32);
+        }
+
+        private long signed(long value, int bits) {
+            return value << (64 - bits) >> (64 - bits);
+        }
+    }
+}
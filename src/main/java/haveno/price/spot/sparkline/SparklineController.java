@@ -0,0 +1,58 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot.sparkline;
+
+import haveno.price.PriceController;
+import haveno.price.util.JsonWriter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+class SparklineController extends PriceController {
+
+    private final SparklineService sparklineService;
+
+    public SparklineController(SparklineService sparklineService) {
+        this.sparklineService = sparklineService;
+    }
+
+    /**
+     * @param hours how many hours back from now to return
+     */
+    @GetMapping(path = "/sparkline/{base}/{counter}")
+    public ResponseEntity<byte[]> getSparkline(@PathVariable String base,
+                                               @PathVariable String counter,
+                                               @RequestParam(defaultValue = "24") long hours) {
+        long from = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(hours);
+        JsonWriter json = new JsonWriter(32768);
+        if (!sparklineService.write(base.toUpperCase(), counter.toUpperCase(), from, json)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json.toByteArray());
+    }
+}
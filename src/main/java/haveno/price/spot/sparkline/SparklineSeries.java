@@ -0,0 +1,120 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot.sparkline;
+
+import haveno.price.util.JsonWriter;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sampled price series of one currency pair, compressed into one {@link GorillaBlock}
+ * per UTC day. Full blocks are trimmed to size, and blocks entirely older than the
+ * retention period are dropped.
+ *
+ * Guarded by a {@link ReentrantLock} rather than a monitor, since requests read it on
+ * virtual threads, which stay pinned to their carrier while waiting for a monitor.
+ */
+final class SparklineSeries {
+
+    private static final long DAY_SECONDS = TimeUnit.DAYS.toSeconds(1);
+
+    private final long sampleSeconds;
+    private final long retentionSeconds;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<GorillaBlock> blocks = new ArrayDeque<>();
+    private long currentDay = Long.MIN_VALUE;
+
+    SparklineSeries(long sampleSeconds, long retentionSeconds) {
+        this.sampleSeconds = sampleSeconds;
+        this.retentionSeconds = retentionSeconds;
+    }
+
+    /**
+     * Append a price, unless the last point is less than the sample interval older.
+     *
+     * @param time in seconds
+     */
+    void append(long time, double price) {
+        lock.lock();
+        try {
+            GorillaBlock current = blocks.peekLast();
+            if (current != null && time < current.getLastTime() + sampleSeconds) {
+                return;
+            }
+            long day = time - Math.floorMod(time, DAY_SECONDS);
+            if (current == null || day != currentDay) {
+                if (current != null) {
+                    current.trim();
+                }
+                current = new GorillaBlock();
+                blocks.addLast(current);
+                currentDay = day;
+            }
+            current.append(time, price);
+            while (blocks.size() > 1 && blocks.peekFirst().getLastTime() < time - retentionSeconds) {
+                blocks.removeFirst();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write the points from the given time on, oldest first, as a comma separated list
+     * of JSON arrays of the time in millis and the price.
+     *
+     * @param fromTime in seconds
+     */
+    void write(long fromTime, JsonWriter json) {
+        lock.lock();
+        try {
+            boolean first = true;
+            for (GorillaBlock block : blocks) {
+                if (block.getLastTime() >= fromTime && block.write(fromTime, first, json) > 0) {
+                    first = false;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return blocks.stream().mapToInt(GorillaBlock::getCount).sum();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return approximate heap size of the compressed points in bytes
+     */
+    long sizeInBytes() {
+        lock.lock();
+        try {
+            return blocks.stream().mapToLong(GorillaBlock::sizeInBytes).sum();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
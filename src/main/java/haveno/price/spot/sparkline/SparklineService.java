@@ -0,0 +1,89 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot.sparkline;
+
+import haveno.price.spot.ExchangeRate;
+import haveno.price.spot.ExchangeRateService;
+import haveno.price.spot.ExchangeRateSnapshot;
+import haveno.price.util.JsonWriter;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a compressed, sampled series of every aggregate rate for sparkline charts,
+ * appended from the snapshots published by the {@link ExchangeRateService}.
+ */
+@Service
+public class SparklineService {
+
+    private final long sampleSeconds;
+    private final long retentionSeconds;
+    // by base, then counter currency
+    private final Map<String, Map<String, SparklineSeries>> seriesByPair = new ConcurrentHashMap<>();
+
+    public SparklineService(Environment env, ExchangeRateService exchangeRateService) {
+        this.sampleSeconds = env.getProperty("haveno.price.sparkline.sampleSeconds", Long.class, 60L);
+        this.retentionSeconds = TimeUnit.HOURS.toSeconds(env.getProperty("haveno.price.sparkline.retentionHours", Long.class, 24L));
+        exchangeRateService.addSnapshotListener(this::onPublish);
+    }
+
+    void onPublish(ExchangeRateSnapshot snapshot) {
+        long time = TimeUnit.MILLISECONDS.toSeconds(snapshot.getPublishedAt());
+        List<ExchangeRate> rates = snapshot.getRates();
+        for (int i = 0; i < rates.size(); i++) {
+            ExchangeRate rate = rates.get(i);
+            SparklineSeries series = find(rate.getBaseCurrency(), rate.getCounterCurrency());
+            if (series == null) {
+                series = seriesByPair.computeIfAbsent(rate.getBaseCurrency(), b -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(rate.getCounterCurrency(), c -> new SparklineSeries(sampleSeconds, retentionSeconds));
+            }
+            series.append(time, rate.getPrice());
+        }
+    }
+
+    /**
+     * Write the sampled prices of a currency pair as a JSON object to the given writer,
+     * decoding them straight into it.
+     *
+     * @param from time in millis of the oldest point to write
+     * @return false if there are no prices of the pair
+     */
+    public boolean write(String base, String counter, long from, JsonWriter json) {
+        SparklineSeries series = find(base, counter);
+        if (series == null) {
+            return false;
+        }
+        json.raw("{\"baseCurrencyCode\":").string(base)
+                .raw(",\"counterCurrencyCode\":").string(counter)
+                .raw(",\"sampleSec\":").number(sampleSeconds)
+                .raw(",\"data\":[");
+        series.write(Math.floorDiv(from, 1000), json);
+        json.raw("]}");
+        return true;
+    }
+
+    private SparklineSeries find(String base, String counter) {
+        Map<String, SparklineSeries> byCounter = seriesByPair.get(base);
+        return byCounter == null ? null : byCounter.get(counter);
+    }
+}
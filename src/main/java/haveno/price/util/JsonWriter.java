@@ -0,0 +1,201 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.util;
+
+import java.util.Arrays;
+
+/**
+ * Minimal JSON writer appending UTF-8 straight into a growable byte array, for
+ * responses encoded from primitive data without building intermediate objects.
+ * Callers are responsible for the structure, i.e. for commas, brackets and braces.
+ */
+public class JsonWriter {
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes();
+    // decimals below this, i.e. of up to 15 significant digits, are exact in a long and a
+    // double, and at most one of a given length rounds to a double in plain notation
+    private static final long MAX_PLAIN_DIGITS = 1_000_000_000_000_000L;
+    private static final int MAX_FRACTION_DIGITS = 18;
+    private static final long[] POWERS_OF_TEN = new long[MAX_FRACTION_DIGITS + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private byte[] bytes;
+    private int length;
+
+    public JsonWriter(int initialCapacity) {
+        this.bytes = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public JsonWriter reset() {
+        length = 0;
+        return this;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    public JsonWriter raw(char c) {
+        ensureCapacity(1);
+        bytes[length++] = (byte) c;
+        return this;
+    }
+
+    /**
+     * Append ASCII text as is, e.g. punctuation or a field name including its quotes.
+     */
+    public JsonWriter raw(String ascii) {
+        int n = ascii.length();
+        ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            bytes[length++] = (byte) ascii.charAt(i);
+        }
+        return this;
+    }
+
+    public JsonWriter string(String value) {
+        if (value == null) {
+            return raw("null");
+        }
+        raw('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                raw('\\').raw(c);
+            } else if (c < 0x20) {
+                escapeControl(c);
+            } else if (c < 0x80) {
+                raw(c);
+            } else if (Character.isSurrogate(c)) {
+                // escaped like Jackson does, rather than as one 4-byte UTF-8 sequence
+                escape(c);
+            } else {
+                utf8(c);
+            }
+        }
+        return raw('"');
+    }
+
+    public JsonWriter number(long value) {
+        if (value == Long.MIN_VALUE) {
+            return raw(Long.toString(value));
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            bytes[length++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        for (int i = length + digits - 1; i >= length; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+        return this;
+    }
+
+    /**
+     * Append the value as {@link Double#toString(double)} does, and so as Jackson does.
+     * Values in plain notation with up to 15 significant digits, which covers prices,
+     * are written digit by digit without allocating.
+     */
+    public JsonWriter number(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            // written as strings, like Jackson does by default
+            return raw('"').raw(Double.toString(value)).raw('"');
+        }
+        double abs = Math.abs(value);
+        if (abs >= 1e-3 && abs < 1e7) {
+            // the shortest decimal which rounds to the value, fewest fraction digits first
+            for (int scale = 0; scale <= MAX_FRACTION_DIGITS; scale++) {
+                long unscaled = Math.round(abs * POWERS_OF_TEN[scale]);
+                if (unscaled >= MAX_PLAIN_DIGITS) {
+                    break;
+                }
+                if (unscaled / (double) POWERS_OF_TEN[scale] == abs) {
+                    return plain(value < 0, unscaled, scale);
+                }
+            }
+        }
+        return raw(Double.toString(value));
+    }
+
+    private JsonWriter plain(boolean negative, long unscaled, int scale) {
+        if (negative) {
+            raw('-');
+        }
+        number(unscaled / POWERS_OF_TEN[scale]);
+        raw('.');
+        if (scale == 0) {
+            return raw('0');
+        }
+        long fraction = unscaled % POWERS_OF_TEN[scale];
+        ensureCapacity(scale);
+        for (int i = length + scale - 1; i >= length; i--) {
+            bytes[i] = (byte) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        length += scale;
+        return this;
+    }
+
+    private void escapeControl(char c) {
+        switch (c) {
+            case '\b': raw("\\b"); break;
+            case '\t': raw("\\t"); break;
+            case '\n': raw("\\n"); break;
+            case '\f': raw("\\f"); break;
+            case '\r': raw("\\r"); break;
+            default: escape(c);
+        }
+    }
+
+    private void escape(char c) {
+        raw("\\u").raw((char) HEX[c >> 12]).raw((char) HEX[c >> 8 & 0xf]).raw((char) HEX[c >> 4 & 0xf]).raw((char) HEX[c & 0xf]);
+    }
+
+    private void utf8(char c) {
+        ensureCapacity(3);
+        if (c < 0x800) {
+            bytes[length++] = (byte) (0xc0 | c >> 6);
+        } else {
+            bytes[length++] = (byte) (0xe0 | c >> 12);
+            bytes[length++] = (byte) (0x80 | c >> 6 & 0x3f);
+        }
+        bytes[length++] = (byte) (0x80 | c & 0x3f);
+    }
+
+    private void ensureCapacity(int additional) {
+        if (length + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+package haveno.price.util;
+
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits repetitive log lines to at most a given number per key and time window, e.g.
+ * per provider and currency pair, so that a noisy key neither floods the log nor
+ * silences the lines of other keys. The first line logged for a key after some were
+ * suppressed reports how many.
+ *
+ * Lock-free, and allocation-free for keys seen before.
+ */
+public class LogSampler {
+
+    private static final int COUNT_BITS = 16;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final int maxLinesPerWindow;
+    private final long windowMillis;
+    private final LongSupplier clock;
+    private final Map<String, Map<String, Window>> windows = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxLinesPerWindow lines logged per key and window, at most 65535
+     * @param window            length of a window
+     */
+    public LogSampler(int maxLinesPerWindow, Duration window) {
+        this(maxLinesPerWindow, window, System::currentTimeMillis);
+    }
+
+    LogSampler(int maxLinesPerWindow, Duration window, LongSupplier clock) {
+        if (maxLinesPerWindow < 1 || maxLinesPerWindow > COUNT_MASK) {
+            throw new IllegalArgumentException("maxLinesPerWindow out of range: " + maxLinesPerWindow);
+        }
+        this.maxLinesPerWindow = maxLinesPerWindow;
+        this.windowMillis = window.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * @return the number of lines suppressed for the key since its last logged line if
+     * a line may be logged now, or -1 if it is to be suppressed
+     */
+    public long acquire(String key, String subKey) {
+        Window window = window(key, subKey);
+        long windowIndex = clock.getAsLong() / windowMillis;
+        while (true) {
+            long state = window.state.get();
+            long next;
+            if (state >>> COUNT_BITS != windowIndex) {
+                next = windowIndex << COUNT_BITS | 1;
+            } else if ((state & COUNT_MASK) < maxLinesPerWindow) {
+                next = state + 1;
+            } else {
+                window.suppressed.incrementAndGet();
+                return -1;
+            }
+            if (window.state.compareAndSet(state, next)) {
+                return window.suppressed.getAndSet(0);
+            }
+        }
+    }
+
+    /**
+     * Log at INFO level unless the line is suppressed.
+     *
+     * @return true if the line was logged
+     */
+    public boolean info(Logger log, String key, String subKey, String format, Object... arguments) {
+        if (!log.isInfoEnabled()) {
+            return false;
+        }
+        long suppressed = acquire(key, subKey);
+        if (suppressed < 0) {
+            return false;
+        }
+        if (suppressed == 0) {
+            log.info(format, arguments);
+        } else {
+            Object[] withSuppressed = Arrays.copyOf(arguments, arguments.length + 1);
+            withSuppressed[arguments.length] = suppressed;
+            log.info(format + " ({} similar lines suppressed)", withSuppressed);
+        }
+        return true;
+    }
+
+    private Window window(String key, String subKey) {
+        Map<String, Window> bySubKey = windows.get(key);
+        Window window = bySubKey == null ? null : bySubKey.get(subKey);
+        if (window == null) {
+            window = windows.computeIfAbsent(key, k -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(subKey, k -> new Window());
+        }
+        return window;
+    }
+
+    private static class Window {
+        // index of the current window in the upper bits, lines logged in it in the lower
+        private final AtomicLong state = new AtomicLong();
+        private final AtomicLong suppressed = new AtomicLong();
+    }
+}
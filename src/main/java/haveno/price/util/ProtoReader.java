@@ -0,0 +1,117 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal protocol buffers reader, the counterpart of {@link ProtoWriter}, reading the
+ * fields of a message one after the other:
+ * <pre>
+ * while (reader.next()) {
+ *     switch (reader.field()) {
+ *         case 1: name = reader.string(); break;
+ *         default: reader.skip();
+ *     }
+ * }
+ * </pre>
+ */
+public class ProtoReader {
+
+    private final byte[] bytes;
+    private final int end;
+    private int position;
+    private int tag;
+
+    public ProtoReader(byte[] bytes) {
+        this(bytes, 0, bytes.length);
+    }
+
+    private ProtoReader(byte[] bytes, int offset, int end) {
+        this.bytes = bytes;
+        this.position = offset;
+        this.end = end;
+    }
+
+    /**
+     * Read the tag of the next field.
+     *
+     * @return false at the end of the message
+     */
+    public boolean next() {
+        if (position >= end) {
+            return false;
+        }
+        tag = (int) varint();
+        return true;
+    }
+
+    public int field() {
+        return tag >>> 3;
+    }
+
+    public long varint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = bytes[position++];
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint at " + position);
+    }
+
+    public double float64() {
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits |= (bytes[position++] & 0xffL) << 8 * i;
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    public String string() {
+        int length = (int) varint();
+        String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    /**
+     * @return a reader of the embedded message of the current field
+     */
+    public ProtoReader message() {
+        int length = (int) varint();
+        ProtoReader message = new ProtoReader(bytes, position, position + length);
+        position += length;
+        return message;
+    }
+
+    /**
+     * Skip the value of the current field.
+     */
+    public void skip() {
+        switch (tag & 7) {
+            case 0: varint(); break;
+            case 1: position += 8; break;
+            case 2: position += (int) varint(); break;
+            case 5: position += 4; break;
+            default: throw new IllegalStateException("Unsupported wire type " + (tag & 7));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal protocol buffers writer appending the wire format straight into a growable
+ * byte array, the counterpart of {@link JsonWriter} for binary responses. Callers are
+ * responsible for the schema, i.e. for field numbers and types. Nested messages are
+ * written to a separate writer and appended with {@link #message}.
+ */
+public class ProtoWriter {
+
+    private static final int VARINT = 0;
+    private static final int FIXED64 = 1;
+    private static final int LENGTH_DELIMITED = 2;
+
+    private byte[] bytes;
+    private int length;
+
+    public ProtoWriter(int initialCapacity) {
+        this.bytes = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public ProtoWriter reset() {
+        length = 0;
+        return this;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    /**
+     * Write an int32, int64, uint32 or uint64 field, omitted if 0 like proto3 does.
+     */
+    public ProtoWriter int64(int field, long value) {
+        if (value != 0) {
+            varint((long) field << 3 | VARINT);
+            varint(value);
+        }
+        return this;
+    }
+
+    /**
+     * Write a double field, omitted if 0 like proto3 does.
+     */
+    public ProtoWriter float64(int field, double value) {
+        if (Double.doubleToRawLongBits(value) != 0) {
+            varint((long) field << 3 | FIXED64);
+            ensureCapacity(8);
+            long bits = Double.doubleToRawLongBits(value);
+            for (int i = 0; i < 8; i++) {
+                bytes[length++] = (byte) (bits >>> 8 * i);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Write a string field, also if empty, as an element of a repeated field may be.
+     */
+    public ProtoWriter string(int field, String value) {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        varint((long) field << 3 | LENGTH_DELIMITED);
+        varint(utf8.length);
+        ensureCapacity(utf8.length);
+        System.arraycopy(utf8, 0, bytes, length, utf8.length);
+        length += utf8.length;
+        return this;
+    }
+
+    /**
+     * Write a message field with the content of the given writer.
+     */
+    public ProtoWriter message(int field, ProtoWriter message) {
+        varint((long) field << 3 | LENGTH_DELIMITED);
+        varint(message.length);
+        return fields(message);
+    }
+
+    /**
+     * Append the fields written to the given writer, as fields of this message.
+     */
+    public ProtoWriter fields(ProtoWriter fields) {
+        ensureCapacity(fields.length);
+        System.arraycopy(fields.bytes, 0, bytes, length, fields.length);
+        length += fields.length;
+        return this;
+    }
+
+    private void varint(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7fL) != 0) {
+            bytes[length++] = (byte) (value & 0x7f | 0x80);
+            value >>>= 7;
+        }
+        bytes[length++] = (byte) value;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (length + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+        }
+    }
+}
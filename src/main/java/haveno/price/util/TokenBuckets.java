@@ -0,0 +1,139 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets of many clients, e.g. by address, for rate limiting. Every bucket
+ * holds up to the burst size and refills at the given rate.
+ *
+ * The table is split into lock-striped stripes, each a map in least recently used
+ * order with a fixed share of the maximum number of clients. Adding a client evicts
+ * the least recently used one of its stripe if that one is idle long enough to have
+ * a full bucket, or if the stripe is full. An evicted client which returns starts
+ * with a full bucket, so evicting idle clients loses nothing, and memory stays
+ * bounded however many addresses come and go.
+ */
+public class TokenBuckets {
+
+    private static final int STRIPES = 16;
+
+    private final double tokensPerNano;
+    private final double burst;
+    private final int maxClientsPerStripe;
+    private final LongSupplier nanoClock;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    /**
+     * @param tokensPerSecond refill rate of each bucket
+     * @param burst           size of each bucket, at least 1
+     * @param maxClients      number of clients tracked at most
+     */
+    public TokenBuckets(double tokensPerSecond, int burst, int maxClients) {
+        this(tokensPerSecond, burst, maxClients, System::nanoTime);
+    }
+
+    TokenBuckets(double tokensPerSecond, int burst, int maxClients, LongSupplier nanoClock) {
+        if (tokensPerSecond <= 0 || burst < 1 || maxClients < 1) {
+            throw new IllegalArgumentException("Invalid rate " + tokensPerSecond + ", burst " + burst + " or maxClients " + maxClients);
+        }
+        this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.maxClientsPerStripe = Math.max(1, maxClients / STRIPES);
+        this.nanoClock = nanoClock;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Take a token from the client's bucket.
+     *
+     * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+     */
+    public long tryAcquire(String client) {
+        Stripe stripe = stripes[(client.hashCode() * 0x9E3779B9) >>> 28];
+        stripe.lock.lock();
+        try {
+            long now = nanoClock.getAsLong();
+            stripe.now = now;
+            Bucket bucket = stripe.buckets.get(client);
+            if (bucket == null) {
+                bucket = new Bucket(burst, now);
+                stripe.buckets.put(client, bucket);
+            } else {
+                bucket.tokens = Math.min(burst, bucket.tokens + (now - bucket.refilledAt) * tokensPerNano);
+                bucket.refilledAt = now;
+            }
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - bucket.tokens) / tokensPerNano));
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of clients currently tracked
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.buckets.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private boolean isFull(Bucket bucket, long now) {
+        return bucket.tokens + (now - bucket.refilledAt) * tokensPerNano >= burst;
+    }
+
+    private class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        // time of the current access, for the eviction
+        private long now;
+        private final Map<String, Bucket> buckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                return size() > maxClientsPerStripe || (size() > 1 && isFull(eldest.getValue(), now));
+            }
+        };
+    }
+
+    private static class Bucket {
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+    }
+}
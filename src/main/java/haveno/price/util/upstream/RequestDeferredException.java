@@ -0,0 +1,30 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.util.upstream;
+
+/**
+ * Thrown instead of making an upstream request, either because the data at hand is
+ * still fresh or because the request budget of the upstream host is used up. The
+ * provider keeps serving its current rates.
+ */
+public class RequestDeferredException extends RuntimeException {
+
+    public RequestDeferredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.util.upstream;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Persisted record of the requests made to each upstream host within the last minute,
+ * and of the last time each provider actually fetched its data. Loaded back on
+ * startup, so that restarts do not reset the request budgets.
+ *
+ * Changes are written at most once per {@link #PERSIST_DELAY_MILLIS}, from a background
+ * thread, rather than once per request. A crash loses the requests of that last delay
+ * only, which is small next to the one minute window.
+ */
+@Slf4j
+public class RequestLedger {
+
+    private static final long WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final int MAGIC = 0x48524c31; // "HRL1"
+    static final long PERSIST_DELAY_MILLIS = 1000;
+
+    private final Path file;
+    private final ToIntFunction<String> maxRequestsPerMinute;
+    private final Map<String, Deque<Long>> requestsByHost = new HashMap<>();
+    private final Map<String, Long> lastFetchByProvider = new HashMap<>();
+    private final ScheduledExecutorService persister = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "request-ledger");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean persistScheduled;
+
+    /**
+     * @param file                 file the ledger is persisted to
+     * @param maxRequestsPerMinute request budget of a given upstream host
+     */
+    RequestLedger(Path file, ToIntFunction<String> maxRequestsPerMinute) {
+        this.file = file;
+        this.maxRequestsPerMinute = maxRequestsPerMinute;
+        load();
+    }
+
+    /**
+     * Record a request to the given host, unless its budget for the current window is
+     * used up.
+     *
+     * @return false if the request must not be made
+     */
+    public synchronized boolean tryAcquire(String host) {
+        long now = System.currentTimeMillis();
+        Deque<Long> requests = requestsByHost.computeIfAbsent(host, h -> new ArrayDeque<>());
+        while (!requests.isEmpty() && requests.peekFirst() <= now - WINDOW_MILLIS) {
+            requests.pollFirst();
+        }
+        if (requests.size() >= maxRequestsPerMinute.applyAsInt(host)) {
+            return false;
+        }
+        requests.addLast(now);
+        schedulePersist();
+        return true;
+    }
+
+    public synchronized void recordFetch(String providerName) {
+        lastFetchByProvider.put(providerName, System.currentTimeMillis());
+        schedulePersist();
+    }
+
+    /**
+     * @return time in millis at which the provider last fetched from upstream, or 0
+     */
+    public synchronized long getLastFetch(String providerName) {
+        return lastFetchByProvider.getOrDefault(providerName, 0L);
+    }
+
+    private void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("not a request ledger");
+            }
+            int hosts = in.readInt();
+            for (int i = 0; i < hosts; i++) {
+                String host = in.readUTF();
+                int count = in.readInt();
+                Deque<Long> requests = new ArrayDeque<>(count);
+                for (int j = 0; j < count; j++) {
+                    requests.addLast(in.readLong());
+                }
+                requestsByHost.put(host, requests);
+            }
+            int providers = in.readInt();
+            for (int i = 0; i < providers; i++) {
+                lastFetchByProvider.put(in.readUTF(), in.readLong());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable request ledger {}: {}", file, e.toString());
+            requestsByHost.clear();
+            lastFetchByProvider.clear();
+        }
+    }
+
+    // called while holding the lock on this
+    private void schedulePersist() {
+        if (!persistScheduled) {
+            persistScheduled = true;
+            persister.schedule(this::persist, PERSIST_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void persist() {
+        byte[] ledger;
+        synchronized (this) {
+            persistScheduled = false;
+            ledger = serialize();
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(tmp, ledger);
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Could not write request ledger {}: {}", file, e.toString());
+        }
+    }
+
+    private byte[] serialize() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(requestsByHost.size());
+            for (Map.Entry<String, Deque<Long>> entry : requestsByHost.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (long timestamp : entry.getValue()) {
+                    out.writeLong(timestamp);
+                }
+            }
+            out.writeInt(lastFetchByProvider.size());
+            for (Map.Entry<String, Long> entry : lastFetchByProvider.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+        } catch (IOException e) {
+            // not thrown by a ByteArrayOutputStream
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
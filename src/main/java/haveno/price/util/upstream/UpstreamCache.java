@@ -0,0 +1,181 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.util.upstream;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * On-disk cache of raw upstream responses, together with a {@link RequestLedger} of
+ * the requests made to each upstream host. Both survive restarts, so a node restarted
+ * by systemd or docker/loop.sh reuses responses which are still fresh and stays within
+ * the request budget of each host, instead of re-fetching from every upstream at once.
+ */
+@Slf4j
+public class UpstreamCache {
+
+    private static final Map<Path, UpstreamCache> INSTANCES = new ConcurrentHashMap<>();
+
+    private final Path dir;
+    private final RequestLedger ledger;
+
+    private UpstreamCache(Path dir, Environment env) {
+        this.dir = dir;
+        int defaultMaxRequests = Integer.parseInt(env.getProperty("haveno.price.upstream.maxRequestsPerMinute", "5"));
+        this.ledger = new RequestLedger(dir.resolve("ledger.bin"), host -> Integer.parseInt(env.getProperty(
+                "haveno.price.upstream.maxRequestsPerMinute." + host, String.valueOf(defaultMaxRequests))));
+    }
+
+    /**
+     * @return the cache shared by all providers using the configured data directory,
+     * or empty if the cache is disabled
+     */
+    public static Optional<UpstreamCache> of(Environment env) {
+        if (!Boolean.TRUE.equals(env.getProperty("haveno.price.upstream.cache.enabled", Boolean.class))) {
+            return Optional.empty();
+        }
+        String dataDir = env.getProperty("haveno.price.dataDir", System.getProperty("user.home") + "/.haveno-pricenode");
+        Path dir = Paths.get(dataDir, "upstream");
+        return Optional.of(INSTANCES.computeIfAbsent(dir, d -> new UpstreamCache(d, env)));
+    }
+
+    /**
+     * @param providerName name of the provider making the request
+     * @param url          url of the upstream resource
+     * @param ttl          age up to which a stored response is reused
+     * @param upstream     performs the actual request
+     * @return the stored response if it is younger than the ttl, otherwise the response
+     * of a new request, made only if the host's request budget allows it
+     * @throws RequestDeferredException if the budget is used up
+     */
+    public byte[] fetch(String providerName, String url, Duration ttl, Supplier<byte[]> upstream) {
+        Optional<byte[]> cached = read(url, ttl);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        acquire(URI.create(url).getHost());
+        byte[] body = upstream.get();
+        ledger.recordFetch(providerName);
+        write(url, body);
+        return body;
+    }
+
+    /**
+     * Check, before a provider fetches data it does not keep as a raw response, that
+     * the rates it holds are not still fresh and that the host's budget allows another
+     * request. The provider calls {@link #recordFetch(String)} once it got its data.
+     *
+     * @param hasRates whether the provider currently holds rates, e.g. restored after
+     *                 a restart
+     * @throws RequestDeferredException if no request should be made
+     */
+    public void beforeFetch(String providerName, String host, Duration ttl, boolean hasRates) {
+        long age = System.currentTimeMillis() - ledger.getLastFetch(providerName);
+        if (hasRates && age < ttl.toMillis()) {
+            throw new RequestDeferredException("rates fetched " + age / 1000 + "s ago are still fresh");
+        }
+        acquire(host);
+    }
+
+    /**
+     * Record that the provider fetched its data, which keeps it from fetching again
+     * while the data is fresh, see {@link #beforeFetch(String, String, Duration, boolean)}.
+     */
+    public void recordFetch(String providerName) {
+        ledger.recordFetch(providerName);
+    }
+
+    /**
+     * Count one more request to the host, for providers which make several requests per
+     * fetch after {@link #beforeFetch(String, String, Duration, boolean)}.
+     *
+     * @throws RequestDeferredException if the budget is used up
+     */
+    public void beforeRequest(String host) {
+        acquire(host);
+    }
+
+    public RequestLedger getLedger() {
+        return ledger;
+    }
+
+    private void acquire(String host) {
+        if (!ledger.tryAcquire(host)) {
+            throw new RequestDeferredException("request budget for " + host + " is used up");
+        }
+    }
+
+    private Optional<byte[]> read(String url, Duration ttl) {
+        Path file = fileFor(url);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            long fetchedAt = in.readLong();
+            if (!url.equals(in.readUTF()) || System.currentTimeMillis() - fetchedAt >= ttl.toMillis()) {
+                return Optional.empty();
+            }
+            return Optional.of(in.readNBytes(in.readInt()));
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable cached response {}: {}", file, e.toString());
+            return Optional.empty();
+        }
+    }
+
+    private void write(String url, byte[] body) {
+        Path file = fileFor(url);
+        try {
+            Files.createDirectories(dir);
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeLong(System.currentTimeMillis());
+                out.writeUTF(url);
+                out.writeInt(body.length);
+                out.write(body);
+            }
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Could not cache response of {}: {}", url, e.toString());
+        }
+    }
+
+    private Path fileFor(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return dir.resolve(HexFormat.of().formatHex(digest, 0, 16) + ".response");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
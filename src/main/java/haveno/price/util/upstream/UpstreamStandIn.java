@@ -0,0 +1,286 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.util.upstream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * Local, in-process HTTP stand-in for the upstream APIs of all providers, used to make
+ * refresh benchmarks and provider tests reproducible and runnable offline.
+ *
+ * Providers send their requests to the stand-in by means of {@link #rewrite(String)},
+ * which maps e.g. {@code https://api.kraken.com/0/public/Ticker} to
+ * {@code http://127.0.0.1:<port>/https/api.kraken.com/0/public/Ticker}.
+ * <ul>
+ *     <li>In {@link Mode#RECORD record} mode the stand-in forwards each request to the
+ *     original url and stores the response as a fixture file.</li>
+ *     <li>In {@link Mode#REPLAY replay} mode it serves the stored responses only, after
+ *     an optional latency, and fails a configurable share of requests with a 503.</li>
+ * </ul>
+ */
+@Slf4j
+public class UpstreamStandIn {
+
+    public enum Mode {
+        OFF, RECORD, REPLAY
+    }
+
+    private static final Map<Path, UpstreamStandIn> INSTANCES = new ConcurrentHashMap<>();
+    private static final int MAGIC = 0x48555031; // "HUP1"
+
+    private final Mode mode;
+    private final Path fixtureDir;
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double errorRate;
+    private final Random random;
+    private final HttpClient client = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+    private final HttpServer server;
+
+    UpstreamStandIn(Mode mode, Path fixtureDir, long latencyMillis, long jitterMillis, double errorRate, long seed)
+            throws IOException {
+        this.mode = mode;
+        this.fixtureDir = fixtureDir;
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.errorRate = errorRate;
+        this.random = new Random(seed);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "upstream-stand-in");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+        log.info("Upstream stand-in in {} mode on port {} with fixtures in {}", mode, getPort(), fixtureDir);
+    }
+
+    /**
+     * @return the stand-in shared by all providers using the configured fixture
+     * directory, or empty unless haveno.price.upstream.mode is record or replay
+     */
+    public static Optional<UpstreamStandIn> of(Environment env) {
+        String modeProperty = env.getProperty("haveno.price.upstream.mode");
+        Mode mode = modeProperty == null ? Mode.OFF : Mode.valueOf(modeProperty.trim().toUpperCase());
+        if (mode == Mode.OFF) {
+            return Optional.empty();
+        }
+        String dataDir = Optional.ofNullable(env.getProperty("haveno.price.dataDir"))
+                .orElse(System.getProperty("user.home") + "/.haveno-pricenode");
+        Path fixtureDir = Paths.get(Optional.ofNullable(env.getProperty("haveno.price.upstream.fixtureDir"))
+                .orElse(dataDir + "/fixtures"));
+        return Optional.of(INSTANCES.computeIfAbsent(fixtureDir, dir -> {
+            try {
+                return new UpstreamStandIn(mode, dir,
+                        Long.parseLong(property(env, "haveno.price.upstream.replay.latencyMillis", "0")),
+                        Long.parseLong(property(env, "haveno.price.upstream.replay.jitterMillis", "0")),
+                        Double.parseDouble(property(env, "haveno.price.upstream.replay.errorRate", "0")),
+                        Long.parseLong(property(env, "haveno.price.upstream.replay.seed", "0")));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not start upstream stand-in", e);
+            }
+        }));
+    }
+
+    private static String property(Environment env, String key, String defaultValue) {
+        return Optional.ofNullable(env.getProperty(key)).orElse(defaultValue);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return the url under which the stand-in serves the given upstream url
+     */
+    public String rewrite(String url) {
+        URI uri = URI.create(url);
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        return "http://127.0.0.1:" + getPort() + "/" + uri.getScheme() + "/" + uri.getRawAuthority() + path
+                + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+    }
+
+    public void stop() {
+        server.stop(0);
+        INSTANCES.remove(fixtureDir, this);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String upstreamUrl = upstreamUrl(exchange.getRequestURI());
+            Fixture fixture;
+            if (mode == Mode.RECORD) {
+                fixture = record(exchange.getRequestMethod(), upstreamUrl);
+            } else {
+                fixture = replay(exchange.getRequestMethod(), upstreamUrl);
+                if (fixture == null) {
+                    log.warn("No fixture recorded for {} {}", exchange.getRequestMethod(), upstreamUrl);
+                    respond(exchange, 404, "text/plain", ("No fixture for " + upstreamUrl).getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+            }
+            respond(exchange, fixture.status, fixture.contentType, fixture.body);
+        } catch (InjectedFailure e) {
+            respond(exchange, 503, "text/plain", "Injected failure".getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            log.warn("Upstream stand-in could not serve {}: {}", exchange.getRequestURI(), e.toString());
+            respond(exchange, 502, "text/plain", e.toString().getBytes(StandardCharsets.UTF_8));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static String upstreamUrl(URI requestUri) {
+        // /<scheme>/<authority>/<path>
+        String[] parts = requestUri.getRawPath().split("/", 4);
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("Not a rewritten upstream url: " + requestUri);
+        }
+        return parts[1] + "://" + parts[2] + "/" + (parts.length == 4 ? parts[3] : "")
+                + (requestUri.getRawQuery() == null ? "" : "?" + requestUri.getRawQuery());
+    }
+
+    private Fixture record(String method, String url) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(URI.create(url))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .timeout(Duration.ofSeconds(30))
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        Fixture fixture = new Fixture(response.statusCode(),
+                response.headers().firstValue("Content-Type").orElse("application/json"),
+                response.body());
+        write(fileFor(method, url), method, url, fixture);
+        return fixture;
+    }
+
+    private Fixture replay(String method, String url) throws IOException, InterruptedException {
+        long delay;
+        boolean fail;
+        synchronized (random) {
+            delay = latencyMillis + (jitterMillis > 0 ? (long) (random.nextDouble() * jitterMillis) : 0);
+            fail = random.nextDouble() < errorRate;
+        }
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+        if (fail) {
+            throw new InjectedFailure();
+        }
+        Path file = fileFor(method, url);
+        return Files.exists(file) ? read(file) : null;
+    }
+
+    private void write(Path file, String method, String url, Fixture fixture) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeUTF(method);
+            out.writeUTF(url);
+            out.writeInt(fixture.status);
+            out.writeUTF(fixture.contentType);
+            out.writeInt(fixture.body.length);
+            out.write(fixture.body);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static Fixture read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("not an upstream fixture: " + file);
+            }
+            in.readUTF();
+            in.readUTF();
+            int status = in.readInt();
+            String contentType = in.readUTF();
+            return new Fixture(status, contentType, in.readNBytes(in.readInt()));
+        }
+    }
+
+    /**
+     * Fixtures are grouped by upstream host and named by a hash of method and url.
+     */
+    private Path fileFor(String method, String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((method + " " + url).getBytes(StandardCharsets.UTF_8));
+            return fixtureDir.resolve(URI.create(url).getHost())
+                    .resolve(HexFormat.of().formatHex(digest, 0, 16) + ".fixture");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private static class Fixture {
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+
+        Fixture(int status, String contentType, byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+
+    private static class InjectedFailure extends RuntimeException {
+    }
+}
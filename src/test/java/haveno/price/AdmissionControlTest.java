@@ -0,0 +1,54 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price;
+
+import haveno.price.spot.EncodedSnapshots;
+import haveno.price.spot.ExchangeRateService;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AdmissionControlTest {
+
+    @Test
+    public void admitsFreeOnlyConditionalRequestsForTheFullBody() {
+        StandardEnvironment env = new StandardEnvironment();
+        env.getPropertySources().addFirst(new MapPropertySource("test", Map.of(
+                "haveno.price.admission.initialLimit", "1",
+                "haveno.price.admission.minLimit", "1",
+                "haveno.price.admission.maxLimit", "1")));
+        EncodedSnapshots encodedSnapshots = new EncodedSnapshots(env,
+                new ExchangeRateService(env, Collections.emptyList(), Collections.emptyList()));
+        AdmissionControl admissionControl = new AdmissionControl(env, encodedSnapshots);
+        String eTag = encodedSnapshots.getAllMarketPrices().getETag();
+
+        // takes the only permit
+        assertEquals(AdmissionControl.Admission.PERMITTED, admissionControl.admit("/getAllMarketPrices", null, false, null));
+
+        assertEquals(AdmissionControl.Admission.FREE, admissionControl.admit("/getAllMarketPrices", null, false, eTag));
+        // served a projection or protocol buffers, which may be encoded on demand
+        assertEquals(AdmissionControl.Admission.REJECTED, admissionControl.admit("/getAllMarketPrices", "currencies=USD", false, eTag));
+        assertEquals(AdmissionControl.Admission.REJECTED, admissionControl.admit("/getAllMarketPrices", null, true, eTag));
+        assertEquals(AdmissionControl.Admission.REJECTED, admissionControl.admit("/getAllMarketPrices", null, false, "\"other\""));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClientRateLimitTest {
+
+    @Test
+    public void limitsRequestsWithoutHeaderByRemoteAddress() {
+        ClientRateLimit rateLimit = rateLimit(Map.of("haveno.price.rateLimit.trustedProxies", ""));
+        assertEquals(0, rateLimit.tryAcquire("/getAllMarketPrices", "203.0.113.7", null));
+        assertTrue(rateLimit.tryAcquire("/getAllMarketPrices", "203.0.113.7", null) > 0);
+        assertEquals(0, rateLimit.tryAcquire("/getAllMarketPrices", "203.0.113.8", null));
+    }
+
+    @Test
+    public void ignoresHeaderOfUntrustedConnections() {
+        ClientRateLimit rateLimit = rateLimit(Map.of());
+        assertEquals(0, rateLimit.tryAcquire("/getAllMarketPrices", "203.0.113.7", "198.51.100.1"));
+        // a client choosing a different header value still shares its bucket
+        assertTrue(rateLimit.tryAcquire("/getAllMarketPrices", "203.0.113.7", "198.51.100.2") > 0);
+    }
+
+    @Test
+    public void limitsByHeaderOfTrustedProxy() {
+        ClientRateLimit rateLimit = rateLimit(Map.of("haveno.price.rateLimit.trustedProxies", "192.0.2.1, 2001:db8::1"));
+        assertEquals(0, rateLimit.tryAcquire("/getAllMarketPrices", "192.0.2.1", "198.51.100.9, 198.51.100.1"));
+        assertTrue(rateLimit.tryAcquire("/getAllMarketPrices", "192.0.2.1", "198.51.100.1") > 0);
+        assertEquals(0, rateLimit.tryAcquire("/getAllMarketPrices", "2001:db8:0:0:0:0:0:1", "198.51.100.2"));
+        // loopback is not trusted once other proxies are configured
+        assertEquals(0, rateLimit.tryAcquire("/getAllMarketPrices", "127.0.0.1", "198.51.100.3"));
+        assertTrue(rateLimit.tryAcquire("/getAllMarketPrices", "127.0.0.1", "198.51.100.4") > 0);
+    }
+
+    @Test
+    public void doesNotLimitLocalTorDaemonByDefault() {
+        ClientRateLimit rateLimit = rateLimit(Map.of());
+        // onion service connections arrive from the Tor daemon without the header
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, rateLimit.tryAcquire("/getAllMarketPrices", "127.0.0.1", null));
+            assertEquals(0, rateLimit.tryAcquire("/getAllMarketPrices", "0:0:0:0:0:0:0:1", null));
+        }
+        // clients of a local reverse proxy are limited one by one
+        assertEquals(0, rateLimit.tryAcquire("/getAllMarketPrices", "127.0.0.1", "198.51.100.1"));
+        assertTrue(rateLimit.tryAcquire("/getAllMarketPrices", "127.0.0.1", "198.51.100.1") > 0);
+    }
+
+    private static ClientRateLimit rateLimit(Map<String, Object> properties) {
+        StandardEnvironment env = new StandardEnvironment();
+        Map<String, Object> limits = new HashMap<>(properties);
+        limits.put("haveno.price.rateLimit.requestsPerMinute", "1");
+        limits.put("haveno.price.rateLimit.burst", "1");
+        env.getPropertySources().addFirst(new MapPropertySource("test", limits));
+        return new ClientRateLimit(env);
+    }
+}
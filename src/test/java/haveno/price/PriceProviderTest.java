@@ -0,0 +1,177 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+package haveno.price;
+
+import haveno.price.spot.ExchangeRate;
+import haveno.price.spot.ExchangeRateProvider;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import haveno.price.util.upstream.UpstreamCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.knowm.xchange.Exchange;
+import org.knowm.xchange.currency.CurrencyPair;
+import org.knowm.xchange.dto.marketdata.Ticker;
+import org.knowm.xchange.exceptions.ExchangeException;
+import org.knowm.xchange.exceptions.NotYetImplementedForExchangeException;
+import org.knowm.xchange.service.marketdata.MarketDataService;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PriceProviderTest {
+
+    @Test
+    public void publishesVersionedResults() {
+        TestProvider provider = new TestProvider();
+        assertEquals(0, provider.getResult().getVersion());
+        assertNull(provider.get());
+
+        List<String> first = List.of("a");
+        provider.put(first);
+        ProviderResult<List<String>> firstResult = provider.getResult();
+        assertEquals(1, firstResult.getVersion());
+        assertSame(first, firstResult.getValue());
+
+        List<String> second = List.of("b");
+        provider.put(second);
+        assertEquals(2, provider.getResult().getVersion());
+        // a result read before stays unchanged
+        assertSame(first, firstResult.getValue());
+    }
+
+    @Test
+    public void compareAndPutKeepsConcurrentResult() {
+        TestProvider provider = new TestProvider();
+        List<String> first = List.of("a");
+        provider.put(first);
+        provider.put(List.of("b"));
+
+        assertFalse(provider.compareAndPut(first, List.of("c")));
+        assertEquals(2, provider.getResult().getVersion());
+        assertEquals(List.of("b"), provider.get());
+    }
+
+    @Test
+    public void recordsFailedBulkTickerRequestAsFailure() throws Exception {
+        MarketDataService marketDataService = mock(MarketDataService.class);
+        when(marketDataService.getTickers(any())).thenThrow(new ExchangeException("rate limited"));
+
+        assertRefreshResult("FAILINGBULK", marketDataService, "other");
+    }
+
+    @Test
+    public void recordsFailedTickerRequestAsFailure() throws Exception {
+        MarketDataService marketDataService = mock(MarketDataService.class);
+        when(marketDataService.getTickers(any())).thenThrow(new NotYetImplementedForExchangeException());
+        when(marketDataService.getTicker(any(CurrencyPair.class))).thenThrow(new IOException("timeout"));
+
+        assertRefreshResult("FAILINGTICKER", marketDataService, "io");
+    }
+
+    @Test
+    public void publishesTickersRetrievedBeforeBudgetRunsOut(@TempDir Path dataDir) throws Exception {
+        String name = "PARTIALTICKERS";
+        MarketDataService marketDataService = mock(MarketDataService.class);
+        when(marketDataService.getTickers(any())).thenThrow(new NotYetImplementedForExchangeException());
+        when(marketDataService.getTicker(any(CurrencyPair.class))).thenAnswer(invocation -> new Ticker.Builder()
+                .currencyPair(invocation.getArgument(0))
+                .last(BigDecimal.valueOf(100))
+                .timestamp(new Date())
+                .build());
+        Exchange exchange = mock(Exchange.class);
+        when(exchange.getMarketDataService()).thenReturn(marketDataService);
+        when(exchange.getExchangeSymbols()).thenReturn(List.of(CurrencyPair.BTC_USD, CurrencyPair.BTC_EUR, CurrencyPair.BTC_GBP));
+        StandardEnvironment env = new StandardEnvironment();
+        env.getPropertySources().addFirst(new MapPropertySource("test", Map.of(
+                "haveno.price.dataDir", dataDir.toString(),
+                "haveno.price.upstream.cache.enabled", "true",
+                // the exchange metadata, the bulk request and one ticker
+                "haveno.price.upstream.maxRequestsPerMinute." + name, "3")));
+        ExchangeRateProvider provider = new ExchangeRateProvider(env, name, name.toLowerCase(), Duration.ofDays(1)) {
+            @Override
+            public Set<ExchangeRate> doGet() {
+                return doGet(Exchange.class);
+            }
+
+            @Override
+            protected Exchange createExchange(Class<? extends Exchange> exchangeClass) {
+                return exchange;
+            }
+        };
+
+        provider.refresh();
+
+        assertEquals(1, provider.get().size());
+        assertTrue(UpstreamCache.of(env).orElseThrow().getLedger().getLastFetch(name) > 0);
+    }
+
+    private static void assertRefreshResult(String name, MarketDataService marketDataService, String result) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            Exchange exchange = mock(Exchange.class);
+            when(exchange.getMarketDataService()).thenReturn(marketDataService);
+            when(exchange.getExchangeSymbols()).thenReturn(List.of(CurrencyPair.BTC_USD));
+            ExchangeRateProvider provider = new ExchangeRateProvider(new StandardEnvironment(), name, name.toLowerCase(), Duration.ofDays(1)) {
+                @Override
+                public Set<ExchangeRate> doGet() {
+                    return doGet(Exchange.class);
+                }
+
+                @Override
+                protected Exchange createExchange(Class<? extends Exchange> exchangeClass) {
+                    return exchange;
+                }
+            };
+
+            provider.refresh();
+
+            assertEquals(1, registry.get("haveno.price.provider.refresh.result")
+                    .tags("provider", name, "result", result).counter().count());
+            assertEquals(0, registry.get("haveno.price.provider.refresh.result")
+                    .tags("provider", name, "result", "success").counter().count());
+            assertEquals(0, registry.get("haveno.price.provider.refresh").tags("provider", name).timer().count());
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+
+    private static class TestProvider extends PriceProvider<List<String>> {
+        TestProvider() {
+            super(Duration.ofDays(1));
+        }
+
+        @Override
+        protected List<String> doGet() {
+            return get();
+        }
+    }
+}
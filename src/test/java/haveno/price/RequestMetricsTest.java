@@ -0,0 +1,62 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class RequestMetricsTest {
+
+    @Test
+    public void parsesHavenoVersionFromUserAgent() {
+        RequestMetrics metrics = new RequestMetrics(new StandardEnvironment());
+        assertEquals("1.0.7", metrics.version("Haveno/1.0.7"));
+        assertEquals("1.0.7", metrics.version("Mozilla/5.0 haveno/1.0.7 (Linux)"));
+        assertEquals("unknown", metrics.version("curl/8.4.0"));
+        assertEquals("unknown", metrics.version(null));
+    }
+
+    @Test
+    public void boundsNumberOfVersions() {
+        RequestMetrics metrics = new RequestMetrics(new StandardEnvironment());
+        for (int i = 0; i < RequestMetrics.MAX_VERSIONS; i++) {
+            assertEquals("1.0." + i, metrics.version("Haveno/1.0." + i));
+        }
+        assertEquals("other", metrics.version("Haveno/2.0.0"));
+        // versions seen before the limit was reached keep their tag
+        assertEquals("1.0.0", metrics.version("Mozilla/5.0 Haveno/1.0.0"));
+    }
+
+    @Test
+    public void keepsPollingClientsCachedWhileUserAgentsChurn() {
+        RequestMetrics metrics = new RequestMetrics(new StandardEnvironment());
+        String client = "Haveno/1.0.7";
+        for (int i = 0; i < 4 * RequestMetrics.MAX_USER_AGENTS; i++) {
+            metrics.version("made-up/" + i);
+            if (i % 100 == 0) {
+                metrics.version(client);
+            }
+        }
+        assertEquals("1.0.7", metrics.cachedVersion(client));
+        assertNull(metrics.cachedVersion("made-up/0"));
+        assertEquals("unknown", metrics.cachedVersion("made-up/" + (4 * RequestMetrics.MAX_USER_AGENTS - 1)));
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+package haveno.price.jfr;
+
+import haveno.price.spot.ExchangeRateService;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AggregationPhaseEventTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void recordsEachPhaseOfSnapshotBuild() throws Exception {
+        Path file = dir.resolve("test.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(AggregationPhaseEvent.class);
+            recording.start();
+            // builds the initial snapshot
+            new ExchangeRateService(new StandardEnvironment(), Collections.emptyList(), Collections.emptyList());
+            recording.stop();
+            recording.dump(file);
+        }
+
+        Set<String> phases = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals("haveno.price.AggregationPhase"))
+                .map(e -> e.getString("phase"))
+                .collect(Collectors.toSet());
+        assertEquals(Set.of(AggregationPhaseEvent.COLLECT, AggregationPhaseEvent.AGGREGATE,
+                AggregationPhaseEvent.TRANSLATE, AggregationPhaseEvent.SORT, AggregationPhaseEvent.METADATA), phases);
+    }
+}
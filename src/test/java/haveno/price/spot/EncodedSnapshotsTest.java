@@ -0,0 +1,36 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EncodedSnapshotsTest {
+
+    @Test
+    public void maxAgeEndsAtTheNextRefresh() {
+        long now = 1_700_000_000_000L;
+        assertEquals(12, EncodedSnapshots.maxAgeSeconds(now, now + 12_999, 60));
+        assertEquals(60, EncodedSnapshots.maxAgeSeconds(now, now + 3_600_000, 60));
+        // a refresh is due or running, or no provider was started
+        assertEquals(0, EncodedSnapshots.maxAgeSeconds(now, now, 60));
+        assertEquals(0, EncodedSnapshots.maxAgeSeconds(now, now - 5_000, 60));
+        assertEquals(0, EncodedSnapshots.maxAgeSeconds(now, 0, 60));
+    }
+}
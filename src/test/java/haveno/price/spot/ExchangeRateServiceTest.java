@@ -18,6 +18,7 @@
 package haveno.price.spot;
 
 import haveno.core.locale.CurrencyUtil;
+import haveno.price.util.bluelytics.ArsBlueMarketGapProvider;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
@@ -34,6 +35,7 @@ import org.springframework.core.env.StandardEnvironment;
 import javax.annotation.Nullable;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.lang.Thread.sleep;
 import static java.util.Arrays.asList;
@@ -186,6 +188,86 @@ public class ExchangeRateServiceTest {
         assertEquals(validTimestamp.toString(), retrievedData.get("binanceTs").toString());
     }
 
+    @Test
+    public void testStaleRatesEvictedWithoutRequest() {
+        String fiatCoin = "BRL";
+        long validTimestamp = System.currentTimeMillis();
+        ExchangeRateProvider provider = buildDummyExchangeRateProviderWithRateAndTimestamp("coinGecko", fiatCoin, 129000.0, validTimestamp);
+        ExchangeRateService service = new ExchangeRateService(new StandardEnvironment(), List.of(provider), Collections.emptyList());
+        Map<String, Object> retrievedData = service.getAllMarketPrices();
+        assertEquals("1", retrievedData.get("coinGeckoCount").toString());
+
+        // the same snapshot is served as long as nothing changed
+        assertSame(retrievedData, service.getAllMarketPrices());
+
+        // once the rate turns stale, the expiry evicts it and the snapshot is rebuilt
+        provider.evictStaleRates(validTimestamp + ExchangeRateProvider.STALE_PRICE_INTERVAL_MILLIS);
+        retrievedData = service.getAllMarketPrices();
+        assertEquals("0", retrievedData.get("coinGeckoTs").toString());
+        assertEquals("0", retrievedData.get("coinGeckoCount").toString());
+    }
+
+    @Test
+    public void getAllMarketPrices_appliesTransformerOncePerRefresh() {
+        AtomicInteger transformations = new AtomicInteger();
+        ExchangeRateTransformer doubleArs = new ExchangeRateTransformer() {
+            @Override
+            public Optional<ExchangeRate> apply(ExchangeRateProvider provider, ExchangeRate exchangeRate) {
+                transformations.incrementAndGet();
+                return Optional.of(new ExchangeRate(
+                        exchangeRate.getBaseCurrency(),
+                        exchangeRate.getCounterCurrency(),
+                        exchangeRate.getPrice() * 2,
+                        exchangeRate.getTimestamp(),
+                        exchangeRate.getProvider()));
+            }
+
+            @Override
+            public String supportedCurrency() {
+                return "ARS";
+            }
+        };
+        ExchangeRateProvider provider = buildDummyExchangeRateProviderWithRate("binance", "ARS", 1000.0);
+        ExchangeRateService service = new ExchangeRateService(new StandardEnvironment(), List.of(provider), List.of(doubleArs));
+        service.getAllMarketPrices();
+        service.getAllMarketPrices();
+        List<ExchangeRate> retrievedRates = validateAndGetRetrievedRates(service.getAllMarketPrices());
+
+        assertEquals(1, retrievedRates.size());
+        assertEquals(2000.0, retrievedRates.get(0).getPrice());
+        assertEquals(1, transformations.get());
+    }
+
+    @Test
+    public void arsBlueRateTransformer_skipsRatesUntilGapIsLoaded() {
+        ExchangeRateTransformer blueRates = new ArsBlueRateTransformer(new ArsBlueMarketGapProvider());
+        ExchangeRateProvider provider = buildDummyExchangeRateProviderWithRate("binance", "ARS", 1000.0);
+        ExchangeRateService service = new ExchangeRateService(new StandardEnvironment(), List.of(provider), List.of(blueRates));
+
+        assertTrue(service.getSnapshot().getRates().isEmpty());
+    }
+
+    @Test
+    public void restore_withArsProviderRateBeforeGapIsLoaded() {
+        ExchangeRateTransformer blueRates = new ArsBlueRateTransformer(new ArsBlueMarketGapProvider());
+        // not started, as during startup
+        ExchangeRateProvider provider = new ExchangeRateProvider(new StandardEnvironment(), "coinGecko", "coinGecko", Duration.ofDays(1)) {
+            @Override
+            protected Set<ExchangeRate> doGet() {
+                return Collections.emptySet();
+            }
+        };
+        ExchangeRateService service = new ExchangeRateService(new StandardEnvironment(), List.of(provider), List.of(blueRates));
+        long now = System.currentTimeMillis();
+        ExchangeRate providerRate = new ExchangeRate("XMR", "ARS", 150000.0, now, "coinGecko");
+        ExchangeRate aggregateRate = new ExchangeRate("XMR", "ARS", 300000.0, now, "Haveno-Aggregate");
+
+        service.restore(new ExchangeRateSnapshot(now, Map.of("coinGecko", Set.of(providerRate)), Collections.emptyMap(), List.of(aggregateRate)));
+
+        assertEquals(Set.of(providerRate), provider.get());
+        assertEquals(List.of(aggregateRate), service.getSnapshot().getRates());
+    }
+
     @Test
     public void havenoIndexCalculation_oneOutlierPriceWideRange() {
         String fiatCoin = "BRL";
@@ -225,6 +307,32 @@ public class ExchangeRateServiceTest {
         checkHavenoIndexCalculationWithOutlier(validateAndGetRetrievedRates(retrievedData), providers, List.of("binance", "bitfinex"));
     }
 
+    @Test
+    public void diagnosticsListContributorsAndOutliers() {
+        String fiatCoin = "GBP";
+        List<ExchangeRateProvider> providers = asList(
+                buildDummyExchangeRateProviderWithRate("bitstamp", fiatCoin, 20788.0),
+                buildDummyExchangeRateProviderWithRate("bitfinex", fiatCoin, 19780.0), // outlier - low
+                buildDummyExchangeRateProviderWithRate("kraken", fiatCoin, 20795.0),
+                buildDummyExchangeRateProviderWithRate("coinGecko", fiatCoin, 20774.0),
+                buildDummyExchangeRateProviderWithRate("binance", fiatCoin, 21361.48), // outlier - high
+                buildDummyExchangeRateProviderWithRate("coinbasePro", fiatCoin, 20798.25));
+        ExchangeRateSnapshot snapshot = new ExchangeRateService(new StandardEnvironment(), providers, Collections.emptyList()).getSnapshot();
+
+        PairDiagnostics diagnostics = snapshot.getDiagnostics("XMR", fiatCoin);
+        assertNotNull(diagnostics);
+        assertEquals(PairDiagnostics.Operation.DIRECT, diagnostics.getOperation());
+        assertEquals(1, diagnostics.getSources().size());
+        PairDiagnostics.Aggregation aggregation = diagnostics.getSources().get(0);
+        assertEquals(6, aggregation.getContributors().size());
+        assertEquals(Set.of("binance", "bitfinex"), aggregation.getOutliers().stream()
+                .map(ExchangeRate::getProvider)
+                .collect(java.util.stream.Collectors.toSet()));
+        assertTrue(aggregation.getLowerBound() > 19780.0 && aggregation.getUpperBound() < 21361.48);
+        assertEquals(diagnostics.getRate().getPrice(), snapshot.getRates().get(0).getPrice());
+        assertNull(snapshot.getDiagnostics("XMR", "EUR"));
+    }
+
     @Test
     public void havenoIndexCalculation_altcoinOutlierPrices() {
         String altcoin = "ETH";
@@ -0,0 +1,87 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ExchangeRateSnapshotStoreTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    public void restoresLastPublishedRatesWithOriginalTimestamps() {
+        long now = System.currentTimeMillis();
+        ExchangeRate fresh = new ExchangeRate("XMR", "USD", 150.25, now - 1000, "Haveno-Aggregate");
+        ExchangeRate stale = new ExchangeRate("XMR", "EUR", 140.5, now - ExchangeRateProvider.STALE_PRICE_INTERVAL_MILLIS - 1000, "KRAKEN");
+        Map<String, Set<ExchangeRate>> providerRates = new LinkedHashMap<>();
+        providerRates.put("KRAKEN", Set.of(fresh, stale));
+
+        new ExchangeRateSnapshotStore(environment(), emptyService())
+                .write(new ExchangeRateSnapshot(now, providerRates, Collections.emptyMap(), List.of(stale, fresh)));
+
+        ExchangeRateService restoredService = emptyService();
+        new ExchangeRateSnapshotStore(environment(), restoredService);
+
+        ExchangeRateSnapshot restored = restoredService.getSnapshot();
+        assertEquals(now, restored.getPublishedAt());
+        assertEquals(List.of(fresh), restored.getRates());
+    }
+
+    @Test
+    public void expiresRestoredRatesOnceTheyTurnStale() {
+        long now = System.currentTimeMillis();
+        long stalesAt = now + 60_000;
+        ExchangeRate aging = new ExchangeRate("XMR", "USD", 150.25, stalesAt - ExchangeRateProvider.STALE_PRICE_INTERVAL_MILLIS, "Haveno-Aggregate");
+        ExchangeRate fresh = new ExchangeRate("XMR", "EUR", 140.5, now, "Haveno-Aggregate");
+        new ExchangeRateSnapshotStore(environment(), emptyService())
+                .write(new ExchangeRateSnapshot(now, Collections.emptyMap(), Collections.emptyMap(), List.of(fresh, aging)));
+
+        ExchangeRateService restoredService = emptyService();
+        new ExchangeRateSnapshotStore(environment(), restoredService);
+        assertEquals(List.of(fresh, aging), restoredService.getSnapshot().getRates());
+
+        StaleRateExpiry.INSTANCE.tick(stalesAt);
+
+        assertEquals(List.of(fresh), restoredService.getSnapshot().getRates());
+        assertEquals(now, restoredService.getSnapshot().getPublishedAt());
+    }
+
+    private Environment environment() {
+        Environment env = mock(Environment.class);
+        when(env.getProperty(eq("haveno.price.dataDir"), anyString())).thenReturn(dataDir.toString());
+        when(env.getProperty("haveno.price.snapshot.enabled", Boolean.class, true)).thenReturn(true);
+        return env;
+    }
+
+    private static ExchangeRateService emptyService() {
+        return new ExchangeRateService(new StandardEnvironment(), Collections.emptyList(), Collections.emptyList());
+    }
+}
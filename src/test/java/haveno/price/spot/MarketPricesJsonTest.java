@@ -0,0 +1,113 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import haveno.price.util.JsonWriter;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MarketPricesJsonTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void writesTheSameBytesAsJackson() throws Exception {
+        List<ExchangeRate> rates = List.of(
+                new ExchangeRate("BTC", "XMR", 0.0025, 1700000000000L, "Haveno-Aggregate"),
+                new ExchangeRate("XMR", "EUR", 0.1 + 0.2, 0L, "KRAKEN"),
+                new ExchangeRate("XMR", "USD", 150.0, -1L, "\u00dcn\u00efcode \uD83D\uDCB0 \"quoted\"\n\u0001"),
+                new ExchangeRate("XMR", "VES", 1.23456789012E8, Long.MAX_VALUE, "BINANCE"),
+                new ExchangeRate("XMR", "BTC", 2.5E-10, 1L, null),
+                new ExchangeRate("XMR", "JPY", Double.NaN, 1L, "COINGECKO"),
+                new ExchangeRate("XMR", "IRR", 1e21, 1L, "COINGECKO"));
+
+        assertJacksonBytes(snapshot(rates));
+    }
+
+    @Test
+    public void writesTheSameBytesAsJacksonForRandomPrices() throws Exception {
+        Random random = new Random(1);
+        List<ExchangeRate> rates = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            double price = random.nextInt(4) == 0
+                    ? Double.longBitsToDouble(random.nextLong() & Long.MAX_VALUE)
+                    : Math.pow(10, random.nextInt(30) - 15) * random.nextDouble();
+            if (!Double.isNaN(price) && !Double.isInfinite(price)) {
+                rates.add(new ExchangeRate("XMR", String.format("F%04d", i), price, random.nextLong(), "SYNTHETIC"));
+            }
+        }
+
+        assertJacksonBytes(snapshot(rates));
+    }
+
+    @Test
+    public void writesEmptySnapshot() throws Exception {
+        assertJacksonBytes(new ExchangeRateSnapshot(0, Collections.emptyMap(), Collections.emptyMap(), Collections.emptyList()));
+    }
+
+    @Test
+    public void writesProjectionOfCurrenciesWithoutMetadata() throws Exception {
+        ExchangeRate btc = new ExchangeRate("BTC", "XMR", 0.0025, 1L, "Haveno-Aggregate");
+        ExchangeRate eur = new ExchangeRate("XMR", "EUR", 140.5, 1L, "Haveno-Aggregate");
+        ExchangeRate usd = new ExchangeRate("XMR", "USD", 150.25, 1L, "Haveno-Aggregate");
+        ExchangeRateSnapshot snapshot = snapshot(List.of(btc, eur, usd));
+        JsonWriter json = new JsonWriter(16);
+
+        MarketPricesJson.write(snapshot, MarketPricesProjection.of(" usd,btc,,USD", false).orElseThrow(), json);
+
+        String expected = new String(objectMapper.writeValueAsBytes(Map.of("data", List.of(btc, usd))), StandardCharsets.UTF_8);
+        assertEquals(expected, new String(json.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void normalizesProjections() {
+        assertEquals(MarketPricesProjection.of("USD,EUR", true), MarketPricesProjection.of("eur, usd,EUR", true));
+        assertTrue(MarketPricesProjection.of(null, true).orElseThrow().isAll());
+        assertTrue(MarketPricesProjection.of(" ,", true).orElseThrow().isAll());
+        assertFalse(MarketPricesProjection.of(null, false).orElseThrow().isAll());
+        assertTrue(MarketPricesProjection.of("US\"D", true).isEmpty());
+
+        StringBuilder currencies = new StringBuilder();
+        for (int i = 0; i < MarketPricesProjection.MAX_CURRENCIES; i++) {
+            currencies.append("F").append(i).append(',');
+        }
+        assertTrue(MarketPricesProjection.of(currencies + "F0", true).isPresent());
+        assertTrue(MarketPricesProjection.of(currencies + "EUR", true).isEmpty());
+    }
+
+    private void assertJacksonBytes(ExchangeRateSnapshot snapshot) throws Exception {
+        JsonWriter json = new JsonWriter(16);
+        MarketPricesJson.write(snapshot, json);
+
+        String expected = new String(objectMapper.writeValueAsBytes(snapshot.getAllMarketPrices()), StandardCharsets.UTF_8);
+        assertEquals(expected, new String(json.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static ExchangeRateSnapshot snapshot(List<ExchangeRate> rates) {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("btcAverageTs", 0L);
+        metadata.put("krakenTs", 1700000000000L);
+        metadata.put("krakenCount", 42);
+        return new ExchangeRateSnapshot(1, Collections.emptyMap(), metadata, rates);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot;
+
+import haveno.price.util.ProtoReader;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MarketPricesProtoTest {
+
+    private static final ExchangeRate USD = new ExchangeRate("XMR", "USD", 150.25, 1000L, "Haveno-Aggregate");
+    private static final ExchangeRate EUR = new ExchangeRate("XMR", "EUR", 140.5, 1000L, "Haveno-Aggregate");
+    private static final ExchangeRate BTC = new ExchangeRate("XMR", "BTC", 0.0025, 1000L, "Haveno-Aggregate");
+
+    @Test
+    public void encodesFullSnapshot() {
+        Decoded decoded = decode(MarketPricesProto.encode(snapshot(7, List.of(BTC, EUR, USD))));
+
+        assertEquals(7, decoded.version);
+        assertEquals(0, decoded.baseVersion);
+        assertEquals(List.of(BTC, EUR, USD), decoded.rates);
+        assertEquals(List.of(), decoded.removed);
+        assertEquals(Map.of("krakenTs", 1000L, "krakenCount", 3L), decoded.metadata);
+    }
+
+    @Test
+    public void encodesDeltaOfNewChangedAndRemovedRates() {
+        ExchangeRate changedUsd = new ExchangeRate("XMR", "USD", 151.0, 2000L, "Haveno-Aggregate");
+        ExchangeRate gbp = new ExchangeRate("XMR", "GBP", 120.0, 2000L, "Haveno-Aggregate");
+
+        Decoded decoded = decode(MarketPricesProto.encodeDelta(
+                snapshot(8, List.of(EUR, gbp, changedUsd)), 7, List.of(BTC, EUR, USD)));
+
+        assertEquals(8, decoded.version);
+        assertEquals(7, decoded.baseVersion);
+        assertEquals(List.of(gbp, changedUsd), decoded.rates);
+        assertEquals(List.of("XMR/BTC"), decoded.removed);
+        assertEquals(Map.of("krakenTs", 1000L, "krakenCount", 3L), decoded.metadata);
+    }
+
+    @Test
+    public void leavesRebuiltAggregatesWithSamePriceOutOfDelta() {
+        ExchangeRate rebuiltUsd = new ExchangeRate("XMR", "USD", 150.25, 2000L, "Haveno-Aggregate");
+        ExchangeRate krakenGbp = new ExchangeRate("XMR", "GBP", 120.0, 1000L, "KRAKEN");
+        ExchangeRate refreshedGbp = new ExchangeRate("XMR", "GBP", 120.0, 2000L, "KRAKEN");
+
+        Decoded decoded = decode(MarketPricesProto.encodeDelta(
+                snapshot(8, List.of(refreshedGbp, rebuiltUsd)), 7, List.of(krakenGbp, USD)));
+
+        assertEquals(List.of(refreshedGbp), decoded.rates);
+        assertEquals(List.of(), decoded.removed);
+    }
+
+    private static ExchangeRateSnapshot snapshot(long version, List<ExchangeRate> rates) {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("krakenTs", 1000L);
+        metadata.put("krakenCount", 3);
+        return new ExchangeRateSnapshot(version, Collections.emptyMap(), metadata, rates);
+    }
+
+    private static Decoded decode(byte[] bytes) {
+        Decoded decoded = new Decoded();
+        List<String> strings = new ArrayList<>();
+        ProtoReader reader = new ProtoReader(bytes);
+        while (reader.next()) {
+            switch (reader.field()) {
+                case 1 -> strings.add(reader.string());
+                case 2 -> {
+                    long[] field = readFields(reader.message(), 2);
+                    decoded.metadata.put(strings.get((int) field[1]), field[2]);
+                }
+                case 3 -> {
+                    ProtoReader rate = reader.message();
+                    int base = 0, counter = 0, provider = 0;
+                    double price = 0;
+                    long timestamp = 0;
+                    while (rate.next()) {
+                        switch (rate.field()) {
+                            case 1 -> base = (int) rate.varint();
+                            case 2 -> counter = (int) rate.varint();
+                            case 3 -> price = rate.float64();
+                            case 4 -> timestamp = rate.varint();
+                            case 5 -> provider = (int) rate.varint();
+                            default -> rate.skip();
+                        }
+                    }
+                    decoded.rates.add(new ExchangeRate(strings.get(base), strings.get(counter), price, timestamp, strings.get(provider)));
+                }
+                case 4 -> decoded.version = reader.varint();
+                case 5 -> decoded.baseVersion = reader.varint();
+                case 6 -> {
+                    long[] pair = readFields(reader.message(), 2);
+                    decoded.removed.add(strings.get((int) pair[1]) + "/" + strings.get((int) pair[2]));
+                }
+                default -> reader.skip();
+            }
+        }
+        return decoded;
+    }
+
+    /**
+     * @return the varint fields 1 to n of the message, at their field number
+     */
+    private static long[] readFields(ProtoReader message, int n) {
+        long[] fields = new long[n + 1];
+        while (message.next()) {
+            fields[message.field()] = message.varint();
+        }
+        return fields;
+    }
+
+    private static class Decoded {
+        private long version;
+        private long baseVersion;
+        private final Map<String, Long> metadata = new HashMap<>();
+        private final List<ExchangeRate> rates = new ArrayList<>();
+        private final List<String> removed = new ArrayList<>();
+    }
+}
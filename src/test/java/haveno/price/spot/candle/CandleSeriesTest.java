@@ -0,0 +1,78 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot.candle;
+
+import haveno.price.util.JsonWriter;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CandleSeriesTest {
+
+    @Test
+    public void aggregatesTicksPerIntervalAndOverwritesOldestCandles() {
+        CandleSeries series = new CandleSeries(1000, 2);
+        series.update(1000, 10.0);
+        series.update(1500, 12.0);
+        series.update(1900, 9.0);
+        series.update(2100, 11.0);
+        series.update(900, 50.0); // older than the current candle, ignored
+        series.update(3000, 13.0);
+
+        assertEquals(2, series.size());
+        assertEquals("{\"openTime\":2000,\"open\":11.0,\"high\":11.0,\"low\":11.0,\"close\":11.0},"
+                        + "{\"openTime\":3000,\"open\":13.0,\"high\":13.0,\"low\":13.0,\"close\":13.0}",
+                write(series, 10));
+        assertEquals("{\"openTime\":3000,\"open\":13.0,\"high\":13.0,\"low\":13.0,\"close\":13.0}",
+                write(series, 1));
+    }
+
+    @Test
+    public void tracksHighLowAndCloseWithinInterval() {
+        CandleSeries series = new CandleSeries(1000, 4);
+        series.update(1000, 10.0);
+        series.update(1500, 12.0);
+        series.update(1900, 9.0);
+
+        assertEquals("{\"openTime\":1000,\"open\":10.0,\"high\":12.0,\"low\":9.0,\"close\":9.0}",
+                write(series, 10));
+    }
+
+    @Test
+    public void growsUpToCapacityBeforeOverwritingOldestCandles() {
+        CandleSeries series = new CandleSeries(1000, 40);
+        for (int i = 1; i <= 45; i++) {
+            series.update(i * 1000L, i);
+        }
+
+        assertEquals(40, series.size());
+        assertTrue(write(series, 40).startsWith("{\"openTime\":6000,\"open\":6.0,"));
+        assertEquals("{\"openTime\":44000,\"open\":44.0,\"high\":44.0,\"low\":44.0,\"close\":44.0},"
+                        + "{\"openTime\":45000,\"open\":45.0,\"high\":45.0,\"low\":45.0,\"close\":45.0}",
+                write(series, 2));
+    }
+
+    private static String write(CandleSeries series, int limit) {
+        JsonWriter json = new JsonWriter(256);
+        series.write(limit, json);
+        return new String(json.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot.history;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HistorySegmentTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void readsTheRecordsOfOnePairAfterReopen() throws IOException {
+        HistorySegment segment = HistorySegment.create(dir, 1, 4096);
+        Random random = new Random(1);
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            int pairId = random.nextInt(7);
+            short kind = random.nextBoolean() ? HistorySegment.KIND_PROVIDER : HistorySegment.KIND_AGGREGATE;
+            // provider ids beyond the range of a short
+            segment.append(1000 + i, i, i * 1.5, pairId, 70_000 + pairId, kind);
+            if (pairId == 3 && kind == HistorySegment.KIND_PROVIDER) {
+                expected.add(1000L + i);
+            }
+        }
+
+        assertEquals(expected, recordedAt(segment, 0));
+        assertEquals(expected.subList(expected.size() / 2, expected.size()),
+                recordedAt(segment, expected.get(expected.size() / 2)));
+        assertEquals(List.of(), recordedAt(segment, 5000));
+        segment.close();
+
+        HistorySegment reopened = HistorySegment.open(segment.getFile());
+        assertEquals(expected, recordedAt(reopened, 0));
+        assertEquals(-1, reopened.firstIndexAtOrAfter(9, HistorySegment.KIND_AGGREGATE, 0));
+        reopened.close();
+    }
+
+    private static List<Long> recordedAt(HistorySegment segment, long from) {
+        List<Long> result = new ArrayList<>();
+        for (int i = segment.firstIndexAtOrAfter(3, HistorySegment.KIND_PROVIDER, from);
+             i >= 0 && i < segment.getCount(); i = segment.nextIndex(i)) {
+            assertEquals(70_003, segment.records().getInt(i * HistorySegment.RECORD_SIZE + 28));
+            result.add(segment.recordedAt(i));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot.history;
+
+import haveno.price.spot.ExchangeRate;
+import haveno.price.spot.ExchangeRateProvider;
+import haveno.price.spot.ExchangeRateService;
+import haveno.price.spot.ExchangeRateSnapshot;
+import haveno.price.util.JsonWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HistoryStoreTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    public void recordsChangedPricesAndReadsThemBackAfterReopen() {
+        Set<ExchangeRate> krakenRates = Set.of(new ExchangeRate("XMR", "USD", 150.0, 1000, "KRAKEN"));
+        ExchangeRate first = new ExchangeRate("XMR", "USD", 150.0, 1000, "KRAKEN");
+        ExchangeRate second = new ExchangeRate("XMR", "USD", 151.5, 2000, "KRAKEN");
+
+        HistoryStore store = new HistoryStore(environment(), emptyService());
+        store.record(snapshot(krakenRates, first));
+        store.record(snapshot(krakenRates, first)); // unchanged, not recorded again
+        store.record(snapshot(krakenRates, second));
+
+        HistoryStore reopened = new HistoryStore(environment(), emptyService());
+        String aggregate = query(reopened, null);
+        assertEquals(2, count(aggregate, "\"price\":"));
+        assertTrue(aggregate.contains("\"timestampSec\":1000,\"price\":150.0,\"provider\":\"KRAKEN\""));
+        assertTrue(aggregate.contains("\"timestampSec\":2000,\"price\":151.5,\"provider\":\"KRAKEN\""));
+
+        assertEquals(1, count(query(reopened, "KRAKEN"), "\"price\":"));
+        assertEquals(0, count(query(reopened, "BINANCE"), "\"price\":"));
+    }
+
+    @Test
+    public void unchangedAggregatePricesDoNotGrowHistory() throws InterruptedException {
+        long timestamp = System.currentTimeMillis();
+        HistoryStore store = new HistoryStore(environment(), emptyService());
+        store.record(serviceSnapshot(timestamp));
+        // the service stamps aggregates with the time they were built
+        Thread.sleep(5);
+        store.record(serviceSnapshot(timestamp));
+
+        assertEquals(1, count(query(store, null), "\"price\":"));
+    }
+
+    private static String query(HistoryStore store, String provider) {
+        JsonWriter json = new JsonWriter(256);
+        store.query("XMR", "USD", 0, Long.MAX_VALUE, provider, 100, json);
+        return new String(json.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static int count(String text, String token) {
+        return text.split(Pattern.quote(token), -1).length - 1;
+    }
+
+    private static ExchangeRateSnapshot snapshot(Set<ExchangeRate> providerRates, ExchangeRate aggregate) {
+        Map<String, Set<ExchangeRate>> byProvider = new LinkedHashMap<>();
+        byProvider.put("KRAKEN", providerRates);
+        return new ExchangeRateSnapshot(System.currentTimeMillis(), byProvider, Collections.emptyMap(), List.of(aggregate));
+    }
+
+    private static ExchangeRateSnapshot serviceSnapshot(long timestamp) {
+        List<ExchangeRateProvider> providers = new ArrayList<>();
+        for (String name : List.of("KRAKEN", "BINANCE")) {
+            ExchangeRateProvider provider = new ExchangeRateProvider(new StandardEnvironment(), name, name.toLowerCase(), Duration.ofDays(1)) {
+                @Override
+                protected Set<ExchangeRate> doGet() {
+                    return Collections.emptySet();
+                }
+            };
+            provider.put(Set.of(new ExchangeRate("XMR", "USD", 150.0, timestamp, name)));
+            providers.add(provider);
+        }
+        return new ExchangeRateService(new StandardEnvironment(), providers, Collections.emptyList()).getSnapshot();
+    }
+
+    private Environment environment() {
+        Environment env = mock(Environment.class);
+        when(env.getProperty(eq("haveno.price.dataDir"), anyString())).thenReturn(dataDir.toString());
+        when(env.getProperty("haveno.price.history.enabled", Boolean.class, true)).thenReturn(true);
+        when(env.getProperty("haveno.price.history.segmentRecords", Integer.class, 1 << 20)).thenReturn(16);
+        when(env.getProperty("haveno.price.history.segmentHours", Long.class, 24L)).thenReturn(24L);
+        when(env.getProperty("haveno.price.history.retentionDays", Long.class, 30L)).thenReturn(30L);
+        return env;
+    }
+
+    private static ExchangeRateService emptyService() {
+        return new ExchangeRateService(new StandardEnvironment(), Collections.emptyList(), Collections.emptyList());
+    }
+}
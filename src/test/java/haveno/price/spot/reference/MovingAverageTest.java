@@ -0,0 +1,61 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot.reference;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MovingAverageTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void weightsPricesByHowLongTheyWereCurrent() {
+        TimeWeightedAverage twap = new TimeWeightedAverage(1000, 16);
+        assertTrue(Double.isNaN(twap.get(0)));
+
+        twap.update(0, 10.0);
+        twap.update(750, 20.0);
+        assertEquals(10.0, twap.get(750), DELTA);
+        assertEquals((10.0 * 750 + 20.0 * 250) / 1000, twap.get(1000), DELTA);
+    }
+
+    @Test
+    public void slidesWindowOverOlderPrices() {
+        TimeWeightedAverage twap = new TimeWeightedAverage(1000, 16);
+        twap.update(0, 10.0);
+        twap.update(500, 20.0);
+        twap.update(1000, 30.0);
+
+        // window [500, 1500]: 20 for 500ms, 30 for 500ms
+        assertEquals(25.0, twap.get(1500), DELTA);
+        // window [1000, 2000]: 30 only
+        assertEquals(30.0, twap.get(2000), DELTA);
+    }
+
+    @Test
+    public void exponentialAverageMovesTowardsLatestPrice() {
+        ExponentialMovingAverage ema = new ExponentialMovingAverage(1000);
+        ema.update(0, 10.0);
+        ema.update(1000, 20.0);
+        assertEquals(10.0, ema.get(1000), DELTA);
+        assertEquals(20.0 + (10.0 - 20.0) * Math.exp(-1), ema.get(2000), DELTA);
+    }
+}
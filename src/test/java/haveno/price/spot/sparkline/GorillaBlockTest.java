@@ -0,0 +1,99 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.spot.sparkline;
+
+import haveno.price.util.JsonWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+public class GorillaBlockTest {
+
+    private static final int POINTS_PER_DAY = 1440;
+    // ExchangeRate with compressed oops: 12 byte header, a double, a long and three
+    // references, padded to 40 bytes, plus the reference held by the list
+    private static final int OBJECT_FORM_BYTES_PER_POINT = 40 + 4;
+
+    @Test
+    public void decodesAllPointsExactly() {
+        GorillaBlock block = new GorillaBlock();
+        JsonWriter expected = new JsonWriter(1024);
+        long time = 1_700_000_000L;
+        double price = 150.0;
+        Random random = new Random(1);
+        for (int i = 0; i < 500; i++) {
+            // irregular intervals, price jumps and repeats, including extreme values
+            time += i % 7 == 0 ? 60 + random.nextInt(5000) : 60;
+            price = i % 3 == 0 ? price : i % 50 == 0 ? 1e-9 * random.nextDouble() : price * (1 + random.nextGaussian() / 100);
+            block.append(time, price);
+            expected.raw(i == 0 ? "[" : ",[").number(time * 1000).raw(',').number(price).raw(']');
+        }
+        assertEquals(new String(expected.toByteArray(), StandardCharsets.UTF_8), write(block, 0));
+        block.trim();
+        assertEquals(new String(expected.toByteArray(), StandardCharsets.UTF_8), write(block, 0));
+    }
+
+    @Test
+    public void skipsPointsBeforeFromTime() {
+        GorillaBlock block = new GorillaBlock();
+        block.append(60, 1.5);
+        block.append(120, 2.5);
+        block.append(180, 2.5);
+        assertEquals("[120000,2.5],[180000,2.5]", write(block, 100));
+    }
+
+    /**
+     * Memory per pair-day of a per-minute series of full-precision, randomly walking
+     * prices, which are the worst case for the XOR encoding, against the same points
+     * held as {@code ExchangeRate} objects in a list.
+     */
+    @Test
+    public void pairDayTakesSmallFractionOfObjectForm() {
+        GorillaBlock block = new GorillaBlock();
+        Random random = new Random(42);
+        long time = 1_700_000_000L;
+        double price = 150.0;
+        for (int i = 0; i < POINTS_PER_DAY; i++) {
+            // prices are unchanged between some samples, as when no provider refreshed
+            if (random.nextInt(10) >= 3) {
+                price *= 1 + random.nextGaussian() / 1000;
+            }
+            block.append(time + i * 60L, price);
+        }
+        block.trim();
+
+        long compressed = block.sizeInBytes();
+        long objectForm = (long) POINTS_PER_DAY * OBJECT_FORM_BYTES_PER_POINT;
+        log.info("Pair-day of {} points: {} bytes compressed ({} bits per point), {} bytes as objects ({}%)",
+                POINTS_PER_DAY, compressed, compressed * 8 / POINTS_PER_DAY, objectForm, 100 * compressed / objectForm);
+        assertTrue(compressed * 4 < objectForm,
+                "compressed " + compressed + " bytes, object form " + objectForm + " bytes");
+    }
+
+    private static String write(GorillaBlock block, long fromTime) {
+        JsonWriter json = new JsonWriter(1024);
+        block.write(fromTime, true, json);
+        return new String(json.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrencyLimiterTest {
+
+    private static final long MILLI = 1_000_000;
+
+    @Test
+    public void rejectsBeyondTheLimit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1, 10, 2.0);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+
+        limiter.release(MILLI);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void growsUpToTheMaximumWhileLatencyIsSteady() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 5, 100, 2.0);
+
+        for (int i = 0; i < 100; i++) {
+            saturate(limiter, MILLI);
+        }
+
+        assertEquals(100, limiter.getLimit());
+    }
+
+    @Test
+    public void shrinksWhenLatencyRisesButNotBelowTheMinimum() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(50, 5, 100, 2.0);
+        for (int i = 0; i < 10; i++) {
+            saturate(limiter, MILLI);
+        }
+        int steadyLimit = limiter.getLimit();
+
+        saturate(limiter, 20 * MILLI);
+        assertTrue(limiter.getLimit() < steadyLimit / 2, "limit " + limiter.getLimit());
+        for (int i = 0; i < 5; i++) {
+            saturate(limiter, 20 * MILLI);
+        }
+        assertTrue(limiter.getLimit() >= 5);
+    }
+
+    @Test
+    public void keepsTheLimitWhileMostlyIdle() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(20, 5, 100, 2.0);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(MILLI);
+        }
+
+        assertEquals(20, limiter.getLimit());
+    }
+
+    /**
+     * Acquire the whole limit, then release all with the given latency.
+     */
+    private static void saturate(ConcurrencyLimiter limiter, long rttNanos) {
+        int n = 0;
+        while (limiter.tryAcquire()) {
+            n++;
+        }
+        for (int i = 0; i < n; i++) {
+            limiter.release(rttNanos);
+        }
+    }
+}
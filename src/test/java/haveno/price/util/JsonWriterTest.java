@@ -0,0 +1,54 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class JsonWriterTest {
+
+    @Test
+    public void writesDoublesLikeDoubleToString() {
+        double[] values = {0.0, -0.0, 1.0, 100.0, 150.25, -42.5, 0.1, 0.1 + 0.2, 0.001, 0.00123, 0.0009999,
+                123456.789, 9999999.999999998, 1e7, 1.5e-7, 2.5e12, Double.MIN_VALUE, Double.MAX_VALUE,
+                Double.NaN, Double.POSITIVE_INFINITY};
+        for (double value : values) {
+            assertWritesLikeDoubleToString(value);
+        }
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            // prices of up to 12 decimals, and arbitrary doubles in plain notation
+            int decimals = random.nextInt(13);
+            assertWritesLikeDoubleToString(Math.round(random.nextDouble() * Math.pow(10, random.nextInt(12) - 3 + decimals)) / Math.pow(10, decimals));
+            assertWritesLikeDoubleToString(random.nextDouble() * Math.pow(10, random.nextInt(11) - 4));
+        }
+    }
+
+    private static void assertWritesLikeDoubleToString(double value) {
+        String expected = Double.isNaN(value) || Double.isInfinite(value)
+                ? "\"" + value + "\""
+                : Double.toString(value);
+        JsonWriter json = new JsonWriter(32);
+        json.number(value);
+        assertEquals(expected, new String(json.toByteArray(), StandardCharsets.US_ASCII));
+    }
+}
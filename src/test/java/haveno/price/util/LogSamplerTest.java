@@ -0,0 +1,46 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+package haveno.price.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LogSamplerTest {
+
+    @Test
+    public void limitsLinesPerKeyAndWindowAndCountsSuppressed() {
+        AtomicLong now = new AtomicLong(1_000_000);
+        LogSampler sampler = new LogSampler(2, Duration.ofMinutes(1), now::get);
+
+        assertEquals(0, sampler.acquire("KRAKEN", "XMR/USD"));
+        assertEquals(0, sampler.acquire("KRAKEN", "XMR/USD"));
+        assertEquals(-1, sampler.acquire("KRAKEN", "XMR/USD"));
+        assertEquals(-1, sampler.acquire("KRAKEN", "XMR/USD"));
+        // other keys are not affected
+        assertEquals(0, sampler.acquire("KRAKEN", "XMR/EUR"));
+        assertEquals(0, sampler.acquire("BINANCE", "XMR/USD"));
+
+        now.addAndGet(Duration.ofMinutes(1).toMillis());
+        assertEquals(2, sampler.acquire("KRAKEN", "XMR/USD"));
+        assertEquals(0, sampler.acquire("KRAKEN", "XMR/USD"));
+        assertEquals(-1, sampler.acquire("KRAKEN", "XMR/USD"));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketsTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void allowsTheBurstThenTheRate() {
+        AtomicLong now = new AtomicLong();
+        TokenBuckets buckets = new TokenBuckets(1, 3, 1024, now::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, buckets.tryAcquire("10.0.0.1"));
+        }
+        assertEquals(SECOND, buckets.tryAcquire("10.0.0.1"));
+        // other clients have their own bucket
+        assertEquals(0, buckets.tryAcquire("10.0.0.2"));
+
+        now.addAndGet(SECOND / 2);
+        assertEquals(SECOND / 2, buckets.tryAcquire("10.0.0.1"));
+        now.addAndGet(SECOND / 2);
+        assertEquals(0, buckets.tryAcquire("10.0.0.1"));
+        assertTrue(buckets.tryAcquire("10.0.0.1") > 0);
+    }
+
+    @Test
+    public void staysBoundedUnderAddressChurn() {
+        AtomicLong now = new AtomicLong();
+        TokenBuckets buckets = new TokenBuckets(1, 10, 256, now::get);
+
+        for (int i = 0; i < 100_000; i++) {
+            buckets.tryAcquire("10.0." + (i >> 8 & 255) + "." + (i & 255) + "/" + i);
+        }
+
+        assertTrue(buckets.size() <= 256, "size " + buckets.size());
+    }
+
+    @Test
+    public void evictsIdleClients() {
+        AtomicLong now = new AtomicLong();
+        TokenBuckets buckets = new TokenBuckets(1, 10, 1024, now::get);
+        for (int i = 0; i < 100; i++) {
+            buckets.tryAcquire("client" + i);
+        }
+
+        // long enough for all buckets to be full again
+        now.addAndGet(60 * SECOND);
+        for (int i = 0; i < 100; i++) {
+            buckets.tryAcquire("other" + i);
+        }
+
+        assertTrue(buckets.size() < 200, "size " + buckets.size());
+    }
+}
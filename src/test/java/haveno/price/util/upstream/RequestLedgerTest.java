@@ -0,0 +1,48 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.util.upstream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestLedgerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void keepsRequestBudgetAcrossRestarts() {
+        Path file = dir.resolve("ledger.bin");
+        RequestLedger ledger = new RequestLedger(file, host -> 2);
+        assertTrue(ledger.tryAcquire("api.example.com"));
+        assertTrue(ledger.tryAcquire("api.example.com"));
+        assertFalse(ledger.tryAcquire("api.example.com"));
+        assertTrue(ledger.tryAcquire("api.example.org"));
+        ledger.recordFetch("EXAMPLE");
+        ledger.persist();
+
+        RequestLedger restarted = new RequestLedger(file, host -> 2);
+        assertFalse(restarted.tryAcquire("api.example.com"));
+        assertTrue(restarted.tryAcquire("api.example.org"));
+        assertEquals(ledger.getLastFetch("EXAMPLE"), restarted.getLastFetch("EXAMPLE"));
+    }
+}
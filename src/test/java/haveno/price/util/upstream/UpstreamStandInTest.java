@@ -0,0 +1,79 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package haveno.price.util.upstream;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class UpstreamStandInTest {
+
+    @TempDir
+    Path fixtureDir;
+
+    @Test
+    public void replaysRecordedResponsesWithoutUpstream() throws Exception {
+        byte[] body = "{\"XMR\":{\"usd\":150.5}}".getBytes(StandardCharsets.UTF_8);
+        HttpServer upstream = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        upstream.createContext("/api/v3/rates", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        upstream.start();
+        String url = "http://127.0.0.1:" + upstream.getAddress().getPort() + "/api/v3/rates?vs=usd";
+
+        UpstreamStandIn recorder = new UpstreamStandIn(UpstreamStandIn.Mode.RECORD, fixtureDir, 0, 0, 0, 0);
+        HttpResponse<String> recorded = get(recorder.rewrite(url));
+        recorder.stop();
+        upstream.stop(0);
+        assertEquals(200, recorded.statusCode());
+        assertEquals(new String(body, StandardCharsets.UTF_8), recorded.body());
+
+        UpstreamStandIn replayer = new UpstreamStandIn(UpstreamStandIn.Mode.REPLAY, fixtureDir, 0, 0, 0, 0);
+        HttpResponse<String> replayed = get(replayer.rewrite(url));
+        assertEquals(200, replayed.statusCode());
+        assertEquals("application/json", replayed.headers().firstValue("Content-Type").orElse(null));
+        assertEquals(new String(body, StandardCharsets.UTF_8), replayed.body());
+        assertEquals(404, get(replayer.rewrite(url.replace("usd", "eur"))).statusCode());
+        replayer.stop();
+
+        UpstreamStandIn failing = new UpstreamStandIn(UpstreamStandIn.Mode.REPLAY, fixtureDir, 0, 0, 1, 0);
+        assertEquals(503, get(failing.rewrite(url)).statusCode());
+        failing.stop();
+    }
+
+    private static HttpResponse<String> get(String url) throws Exception {
+        return HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create(url)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}